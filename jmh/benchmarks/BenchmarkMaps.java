@@ -0,0 +1,109 @@
+package benchmarks;
+
+import java.nio.charset.StandardCharsets;
+import simulation.World;
+
+/**
+ * Builds made-up maps of any width for the benchmarks. Every map is a box
+ * of solid tiles with the player in a small room on the left, walled off
+ * from the snails so the player never dies or wins while being measured.
+ * Snails fill the floor of the rest of the map first, then stack up.
+ *
+ * @author dPow
+ */
+final class BenchmarkMaps {
+    static final int ROWS = 12; //Same as the real levels
+    static final int SOLID_TILE = 21; //Tiles before 20 are decoration
+    static final int NUM_DECORATION_TILES = 20;
+    //Size of a level in the 800x600 window
+    static final double SCREEN_WIDTH = 800;
+    static final double SCREEN_HEIGHT = 600 - 0.25*World.PLAYER_SIZE;
+    private static final int PLAYER_COLUMN = 2;
+    private static final int WALL_COLUMN = 5;
+    private static final int FIRST_SNAIL_COLUMN = WALL_COLUMN + 2;
+
+    private BenchmarkMaps() {
+    }
+
+    /**
+     * Makes the tiles of a map.
+     *
+     * @param width
+     *          Number of columns
+     * @param enemies
+     *          Number of snails
+     * @return
+     *          int[row][col] of tile numbers
+     */
+    static int[][] tiles(int width, int enemies) {
+        int[][] tiles = new int[ROWS][width];
+        for (int col = 0; col < width; col++) {
+            tiles[0][col] = SOLID_TILE;
+            tiles[ROWS - 1][col] = SOLID_TILE;
+        }
+        for (int row = 1; row < ROWS - 1; row++) {
+            tiles[row][0] = SOLID_TILE;
+            tiles[row][WALL_COLUMN] = SOLID_TILE;
+            tiles[row][width - 1] = SOLID_TILE;
+        }
+        tiles[ROWS - 2][PLAYER_COLUMN] = World.PLAYER_TILE;
+
+        int columns = width - 1 - FIRST_SNAIL_COLUMN;
+        if (enemies > columns*(ROWS - 3)) {
+            throw new IllegalArgumentException(enemies + " snails don't fit in "
+                    + width + " columns");
+        }
+        for (int i = 0; i < enemies; i++) {
+            int row = ROWS - 2 - i / columns;
+            int col = FIRST_SNAIL_COLUMN + i % columns;
+            tiles[row][col] = World.SNAIL_TILE;
+        }
+        return tiles;
+    }
+
+    /**
+     * Makes a map in the text .map format.
+     *
+     * @param width
+     *          Number of columns
+     * @param enemies
+     *          Number of snails
+     * @return
+     *          The contents of the .map file
+     */
+    static byte[] text(int width, int enemies) {
+        int[][] tiles = tiles(width, enemies);
+        StringBuilder sb = new StringBuilder();
+        sb.append(ROWS).append('\n').append(width).append('\n');
+        for (int[] row : tiles) {
+            for (int tile : row) {
+                sb.append(tile).append(' ');
+            }
+            sb.append('\n');
+        }
+        return sb.toString().getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Builds a world from a made-up map and lets the player land on the
+     * floor, so the benchmarks measure a player that is standing still.
+     *
+     * @param width
+     *          Number of columns
+     * @param enemies
+     *          Number of snails
+     * @return
+     *          The world
+     */
+    static World world(int width, int enemies) {
+        World world = new World(tiles(width, enemies), NUM_DECORATION_TILES,
+                SCREEN_WIDTH, SCREEN_HEIGHT);
+        for (int i = 0; i < 120; i++) {
+            world.step();
+        }
+        if (world.isFinished()) {
+            throw new IllegalStateException("Player died before the benchmark started");
+        }
+        return world;
+    }
+}
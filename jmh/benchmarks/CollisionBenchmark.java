@@ -0,0 +1,75 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import simulation.PlayerBody;
+import simulation.World;
+
+/**
+ * Per-tick work of the simulation: the player's map collision and win
+ * checks, and a whole World.step(). None of these should allocate, which
+ * the GC profiler's gc.alloc.rate.norm shows.
+ *
+ * enemyCount is the number of snails in the map. Only the ones in the
+ * chunks around the screen are spawned, so on the wider maps fewer of them
+ * are simulated.
+ *
+ * @author dPow
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CollisionBenchmark {
+    @Param({"200", "2000", "20000"})
+    public int mapWidth;
+
+    @Param({"0", "100", "1000"})
+    public int enemyCount;
+
+    private World world;
+    private PlayerBody player;
+
+    @Setup
+    public void setUp() {
+        world = BenchmarkMaps.world(mapWidth, enemyCount);
+        player = world.getPlayer();
+    }
+
+    @Benchmark
+    public boolean checkMapCollision() {
+        player.checkMapCollision();
+        return player.isOnGround();
+    }
+
+    @Benchmark
+    public boolean updateCollisions() {
+        player.updateCollisions();
+        return player.isOnGround();
+    }
+
+    @Benchmark
+    public boolean checkWin() {
+        player.checkWin();
+        return world.isFinished();
+    }
+
+    @Benchmark
+    public void step(Blackhole bh) {
+        world.step();
+        bh.consume(world.getTicks());
+    }
+}
@@ -0,0 +1,80 @@
+package benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import platformcontrol.GameState;
+import simulation.MapLoader;
+
+/**
+ * Reading a level's map, which happens every time a level is started or
+ * restarted: the text .map format, and the binary .bmap format the build
+ * compiles it into.
+ *
+ * @author dPow
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MapLoadBenchmark {
+    @Param({"200", "2000", "20000"})
+    public int mapWidth;
+
+    @Param({"0", "100", "1000"})
+    public int enemyCount;
+
+    private byte[] mapFile;
+    private byte[] binaryMapFile;
+    private MapState level;
+
+    @Setup
+    public void setUp() throws IOException {
+        mapFile = BenchmarkMaps.text(mapWidth, enemyCount);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        MapLoader.writeBinaryMap(BenchmarkMaps.tiles(mapWidth, enemyCount),
+                "/levelresources/TileSet.png", out);
+        binaryMapFile = out.toByteArray();
+        level = new MapState();
+    }
+
+    @Benchmark
+    public int[][] loadMapSheet() {
+        level.loadMapSheet(new ByteArrayInputStream(mapFile));
+        return level.getMapTiles();
+    }
+
+    @Benchmark
+    public int[][] loadBinaryMap() throws IOException {
+        return MapLoader.readBinaryMap(ByteBuffer.wrap(binaryMapFile));
+    }
+
+    /**
+     * A GameState that only loads its map, without a GameStateManager or
+     * any drawing.
+     */
+    static class MapState extends GameState {
+        @Override
+        public void initObjects() {
+        }
+
+        int[][] getMapTiles() {
+            return mapTiles;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package benchmarks;
+
+import characters.SpriteFrame;
+import characters.SpriteManager;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import javafx.embed.swing.JFXPanel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import platformcontrol.GameState;
+import platformcontrol.TileSet;
+
+/**
+ * Loading the tile set and the sprite sheets. The uncached benchmarks clear
+ * TileSet's or SpriteManager's cache first so each sheet is decoded again. Images can
+ * only be made once the JavaFX toolkit is running, so these need a display.
+ *
+ * @author dPow
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResourceBenchmark {
+    private TileState level;
+
+    @Setup
+    public void setUp() {
+        new JFXPanel(); //Starts the JavaFX toolkit
+        level = new TileState();
+    }
+
+    @Benchmark
+    public TileSet loadTiles() {
+        TileSet.clearCache();
+        level.loadTiles();
+        return level.getTileSet();
+    }
+
+    /**
+     * What starting or restarting a level costs once the tile set has
+     * been decoded.
+     */
+    @Benchmark
+    public TileSet cachedLoadTiles() {
+        level.loadTiles();
+        return level.getTileSet();
+    }
+
+    @Benchmark
+    public List<List<SpriteFrame>> playerSprites() {
+        SpriteManager.clearCache();
+        return SpriteManager.getPlayerSpritesRight();
+    }
+
+    @Benchmark
+    public List<SpriteFrame> deathSprites() {
+        SpriteManager.clearCache();
+        return SpriteManager.getDeathSprites();
+    }
+
+    @Benchmark
+    public List<List<SpriteFrame>> fireballSprites() {
+        SpriteManager.clearCache();
+        return SpriteManager.getFireballSprites();
+    }
+
+    @Benchmark
+    public List<List<SpriteFrame>> snailSprites() {
+        SpriteManager.clearCache();
+        return SpriteManager.getSnailSprites();
+    }
+
+    /**
+     * What spawning an entity costs now that the sheets are cached.
+     */
+    @Benchmark
+    public List<SpriteFrame> cachedDeathSprites() {
+        return SpriteManager.getDeathSprites();
+    }
+
+    /**
+     * A GameState that only loads its tile set, without a GameStateManager
+     * or any drawing.
+     */
+    static class TileState extends GameState {
+        @Override
+        public void initObjects() {
+        }
+
+        TileSet getTileSet() {
+            return tileSet;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package benchmarks;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import simulation.MapLoader;
+import simulation.World;
+
+/**
+ * Starting a level from a compiled binary map. The map is memory-mapped
+ * and only the chunks around the screen are read, so the time shouldn't
+ * depend on the map's width.
+ *
+ * @author dPow
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StreamingBenchmark {
+    @Param({"2000", "20000", "200000"})
+    public int mapWidth;
+
+    @Param({"false", "true"})
+    public boolean packedEnemies;
+
+    private Path mapFile;
+
+    @Setup
+    public void setUp() throws IOException {
+        mapFile = Files.createTempFile("benchmark", MapLoader.BINARY_EXTENSION);
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(mapFile))) {
+            MapLoader.writeBinaryMap(BenchmarkMaps.tiles(mapWidth, mapWidth/2),
+                    "/levelresources/TileSet.png", out);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(mapFile);
+    }
+
+    @Benchmark
+    public World openWorld() throws IOException {
+        return new World(MapLoader.openChunks(mapFile), BenchmarkMaps.NUM_DECORATION_TILES,
+                BenchmarkMaps.SCREEN_WIDTH, BenchmarkMaps.SCREEN_HEIGHT, packedEnemies);
+    }
+}
@@ -1,48 +1,39 @@
 package characters;
 
-import javafx.scene.image.Image;
+import java.util.List;
 import platformcontrol.GameState;
+import simulation.Body;
+import simulation.SnailBody;
 
 /**
  *
  * @author DP
  */
 public class SnailEnemy extends Entity{
-    boolean hitObject;
-    
+    List<List<SpriteFrame>> sprites;
+
     /**
-     * Sets health and damage for snail enemies.
-     * 
-     * @param x
-     *          Starting X-coordinate
-     * @param y
-     *          Starting Y-coordinate
-     * @param world 
+     * Loads the snail's sprites.
+     *
+     * @param body
+     *          The snail in the simulation
+     * @param world
      *          The current GameState
      */
-    public SnailEnemy(double x, double y, GameState world) {
-        super((Image) null, world);
-        sprites = (new SpriteManager()).getSnailSprites();
-        setX(x);
-        setY(y);
-        setFitWidth(GameState.ENEMY_SIZE);
-        setFitHeight(GameState.ENEMY_SIZE);
-        direction = "Right";
-        health = 10;
-        moveSpeed = 1;
-        enemyDamage = 5;
-        flinchImage = sprites.get(currentAction)[0];
-        this.setImage(sprites.get(currentAction)[0]);
+    public SnailEnemy(SnailBody body, GameState world) {
+        super(body, world);
+        sprites = SpriteManager.getSnailSprites();
+        sync(1);
     }
 
     @Override
-    public void playDeathTone() {
-        SoundEffect.DEATH.play();
+    protected SpriteFrame getSprite(int action, int frame, String direction) {
+        return sprites.get(action).get(frame);
     }
-    
+
     @Override
-    public void playFlinchTone() {
-        SoundEffect.INSECT_GRUNT.play();
+    protected SpriteFrame getFlinchSprite(String direction) {
+        return sprites.get(Body.WALKING).get(0);
     }
-    
+
 }
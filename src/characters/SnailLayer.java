@@ -0,0 +1,90 @@
+package characters;
+
+import java.util.ArrayList;
+import java.util.List;
+import javafx.scene.Group;
+import javafx.scene.image.ImageView;
+import platformcontrol.GameState;
+import simulation.Body;
+import simulation.SnailStore;
+
+/**
+ * Draws the snails of a SnailStore. Only the snails on screen are drawn,
+ * using a pool of ImageViews that grows to the most snails that have been
+ * on screen at once, so the number of nodes doesn't depend on how many
+ * snails the level has.
+ *
+ * @author dPow
+ */
+public class SnailLayer extends Group {
+    private final SnailStore snails;
+    private final GameState world;
+    private final List<List<SpriteFrame>> sprites;
+    private final List<SpriteFrame> deathSprites;
+    private final ArrayList<ImageView> pool = new ArrayList<>();
+
+    /**
+     * Loads the snail sprites.
+     *
+     * @param snails
+     *          Snails to draw
+     * @param world
+     *          The current GameState
+     */
+    public SnailLayer(SnailStore snails, GameState world) {
+        this.snails = snails;
+        this.world = world;
+        sprites = SpriteManager.getSnailSprites();
+        deathSprites = SpriteManager.getDeathSprites();
+    }
+
+    /**
+     * Draws the snails on screen between where they were at the start of
+     * the tick and where they are now.
+     *
+     * @param alpha
+     *          How far between the last two ticks to draw, from 0 to 1
+     * @param cameraX
+     *          Screen X-coordinate of the world's left edge
+     */
+    public void update(double alpha, double cameraX) {
+        double size = GameState.ENEMY_SIZE;
+        double viewportWidth = world.getWidth();
+        int used = 0;
+        for (int i = 0; i < snails.size(); i++) {
+            double x = snails.getPreviousX(i) + (snails.getX(i) - snails.getPreviousX(i))*alpha;
+            if (x + cameraX > viewportWidth || x + size + cameraX < 0) {
+                continue;
+            }
+            if (used == pool.size()) {
+                ImageView view = new ImageView();
+                view.setFitWidth(size);
+                view.setFitHeight(size);
+                view.setSmooth(false); //Same as Entity
+                pool.add(view);
+                getChildren().add(view);
+            }
+            ImageView view = pool.get(used++);
+            view.setX(x);
+            view.setY(snails.getPreviousY(i) + (snails.getY(i) - snails.getPreviousY(i))*alpha);
+            getSprite(i).applyTo(view);
+            view.setVisible(true);
+        }
+        for (int i = used; i < pool.size(); i++) {
+            pool.get(i).setVisible(false);
+        }
+    }
+
+    private SpriteFrame getSprite(int i) {
+        switch (snails.getSpriteMode(i)) {
+            case Body.SPRITE_FLINCH:
+                return sprites.get(Body.WALKING).get(0);
+            case Body.SPRITE_BLANK:
+                return world.blankTile;
+            case Body.SPRITE_DEATH:
+                return deathSprites.get(snails.getSpriteFrame(i));
+            default:
+                return sprites.get(snails.getSpriteAction(i)).get(snails.getSpriteFrame(i));
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package characters;
+
+import javafx.geometry.Rectangle2D;
+import javafx.scene.image.Image;
+import javafx.scene.image.ImageView;
+
+/**
+ * One frame of an animation: the part of a sprite sheet to show. Frames
+ * don't copy any pixels, so every frame of a sheet shares the sheet's
+ * texture.
+ *
+ * @author dPow
+ */
+public final class SpriteFrame {
+    private final Image sheet;
+    private final Rectangle2D viewport;
+
+    /**
+     * @param sheet
+     *          The whole sprite sheet
+     * @param viewport
+     *          The part of the sheet that holds the frame
+     */
+    public SpriteFrame(Image sheet, Rectangle2D viewport) {
+        this.sheet = sheet;
+        this.viewport = viewport;
+    }
+
+    /**
+     * Shows the frame in an ImageView. The view's size isn't changed.
+     *
+     * @param view
+     *          View to draw the frame with
+     */
+    public void applyTo(ImageView view) {
+        view.setImage(sheet);
+        view.setViewport(viewport);
+    }
+
+    public Image getSheet() {
+        return sheet;
+    }
+
+    public Rectangle2D getViewport() {
+        return viewport;
+    }
+}
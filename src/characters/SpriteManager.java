@@ -1,16 +1,31 @@
 package characters;
 
-import java.awt.image.BufferedImage;
 import java.util.ArrayList;
-import javafx.embed.swing.SwingFXUtils;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import javafx.geometry.Rectangle2D;
 import javafx.scene.image.Image;
+import simulation.Body;
+import simulation.FireballBody;
+import simulation.PlayerBody;
+import simulation.SnailBody;
 
+/**
+ * Splits the sprite sheets into frames. Each sheet is only decoded the
+ * first time it's needed; after that every entity shares the same frames,
+ * so spawning an entity doesn't read or decode any images. Frames are
+ * viewports into their sheet, so a sheet is a single texture no matter how
+ * many frames it has.
+ *
+ * Sprites are returned as unmodifiable lists of animations (one per action
+ * enum), each an unmodifiable list of frames. They can be used from any
+ * thread.
+ *
+ * @author dPow
+ */
 public class SpriteManager {
-    BufferedImage playerSpritesFile;
-    private ArrayList<Image[]> playerSpritesRight;
-    private ArrayList<Image[]> playerSpritesLeft;
-    private int[] numberOfSpriteFrames;
-    
     public static final int IDLE = 0;
     public static final int WALKING = 1;
     public static final int JUMPING = 2;
@@ -18,179 +33,171 @@ public class SpriteManager {
     public static final int GLIDING = 4;
     public static final int FIRING = 5;
     public static final int SCRATCHING = 6;
-    
-    public SpriteManager(){}
-    
+
+    private static final String PLAYER_RIGHT = "characterimages/PlayerSpritesRight.png";
+    private static final String PLAYER_LEFT = "characterimages/PlayerSpritesLeft.png";
+    private static final String DEATH = "characterimages/DeathSprites.png";
+    private static final String FIREBALL = "characterimages/Fireball.png";
+    private static final String SNAIL = "characterimages/SnailEnemy.png";
+
+    //Decoded sheets by file name
+    private static final ConcurrentHashMap<String, List<List<SpriteFrame>>> SHEETS =
+            new ConcurrentHashMap<>();
+
+    private SpriteManager(){}
+
     /**
-     * Initialize the player's sprites. Player sprites are split
-     * into left and right images
+     * Gets the frames of a sheet, decoding it if this is the first time
+     * it's used. If several threads ask for a sheet that hasn't been
+     * decoded yet, only one of them decodes it and the rest wait.
      */
-    private void initPlayerSprites(String s){
-        ArrayList<Image[]> playerSprites = new ArrayList<>();
-        int spriteSize = 30; //Size of each sprite in the .png files
-        //Make a list of how many sprite frames per type of movement.
-        //Each type of movement corresponds to a different index in the array.
-        numberOfSpriteFrames = new int[]{2, 8, 1, 2, 4, 2, 5};
-        //Load the image from resources and turn into buffered image
-        //BufferedImage is needed for subImage method.
-        Image player = null;
-        if (s.equals("Right")){
-            player = new Image("characterimages/PlayerSpritesRight.png");
+    private static List<List<SpriteFrame>> getSheet(String file){
+        return SHEETS.computeIfAbsent(file, SpriteManager::loadSheet);
+    }
+
+    private static List<List<SpriteFrame>> loadSheet(String file){
+        switch (file){
+            case PLAYER_RIGHT:
+            case PLAYER_LEFT:
+                return loadPlayerSprites(file);
+            case DEATH:
+                return loadDeathSprites();
+            case FIREBALL:
+                return loadFireballSprites();
+            case SNAIL:
+                return loadSnailSprites();
+            default:
+                throw new IllegalArgumentException("Unknown sprite sheet " + file);
         }
-        else if(s.equals("Left")){
-            player = new Image("characterimages/PlayerSpritesLeft.png");
+    }
+
+    /**
+     * Makes the frames of one row of a sheet. Frames have no padding
+     * between them, so each frame is found by how far it is from the left
+     * edge.
+     */
+    private static List<SpriteFrame> frames(Image sheet, int row, int count,
+            int frameWidth, int frameHeight){
+        SpriteFrame[] frames = new SpriteFrame[count];
+        for (int col = 0; col < count; col++){
+            frames[col] = new SpriteFrame(sheet, new Rectangle2D(
+                    col*frameWidth, row*frameHeight, frameWidth, frameHeight));
         }
-        playerSpritesFile = SwingFXUtils.fromFXImage(player, null);
-        
+        return Collections.unmodifiableList(Arrays.asList(frames));
+    }
+
+    /**
+     * Splits one of the player's sheets. Player sprites are split
+     * into left and right images.
+     */
+    private static List<List<SpriteFrame>> loadPlayerSprites(String file){
+        List<List<SpriteFrame>> playerSprites = new ArrayList<>();
+        int spriteSize = 30; //Size of each sprite in the .png files
+        //How many sprite frames per type of movement.
+        //Each type of movement corresponds to a different index in the array.
+        int[] numberOfSpriteFrames = PlayerBody.FRAME_COUNTS;
+        Image sheet = new Image(file);
+
         //For each type of movement (this works since each movement was
         //on a different row)
         for (int row = 0; row < numberOfSpriteFrames.length; row++){
-            Image[] currentMovementSprites;
             //The final row contains extra long images, so it doesn't fit perfectly
             //in spriteSize like the first 5 rows
-            if (row != 6){
-                //Set how large the BufferedImage array will be for the specific
-                //type of movement
-                currentMovementSprites = new Image[numberOfSpriteFrames[row]];
-                //Since each sprite has no padding between them, add each sprite
-                //image according to how far it is from the left edge
-                for (int col = 0; col < currentMovementSprites.length; col++){
-                    BufferedImage sprite = playerSpritesFile.getSubimage(
-                            col*spriteSize, row*spriteSize,
-                            spriteSize, spriteSize);
-                    //SwingFXUtils converts from BufferedImage to FXImage
-                    currentMovementSprites[col] = SwingFXUtils.toFXImage(sprite, null);
-                }
-            }
-            //For scratching animation
-            else{
-                currentMovementSprites = new Image[numberOfSpriteFrames[row]];
-                for (int j = 0; j < currentMovementSprites.length; j++){
-                    BufferedImage sprite = playerSpritesFile.getSubimage(
-                            //Only difference is j*spriteSize*2
-                            j*spriteSize*2, row*spriteSize,
-                            spriteSize*2, spriteSize);
-                    currentMovementSprites[j] = SwingFXUtils.toFXImage(sprite, null);
-                }
-            }
-            //Add the current row's sprites to the playerSprites list
-            playerSprites.add(currentMovementSprites);
+            int spriteWidth = row != SCRATCHING ? spriteSize : spriteSize*2;
+            playerSprites.add(frames(sheet, row, numberOfSpriteFrames[row],
+                    spriteWidth, spriteSize));
         }
-        //Once all the rows are completed, return the list
-        if (s.equals("Right")){
-            playerSpritesRight = new ArrayList(playerSprites);
-        }
-        else if(s.equals("Left")){
-            playerSpritesLeft = new ArrayList(playerSprites);
+        return Collections.unmodifiableList(playerSprites);
+    }
+
+    private static List<List<SpriteFrame>> loadDeathSprites(){
+        int size = 30;
+        return Collections.singletonList(frames(new Image(DEATH), 0, Body.DEATH_FRAMES,
+                size, size));
+    }
+
+    private static List<List<SpriteFrame>> loadFireballSprites(){
+        int fireballSpriteSize = 16;
+        List<List<SpriteFrame>> fireballSpriteImages = new ArrayList<>();
+        int[] numberOfSpriteFrames = FireballBody.FRAME_COUNTS;
+        Image sheet = new Image(FIREBALL);
+
+        for (int row = 0; row < numberOfSpriteFrames.length; row++){
+            fireballSpriteImages.add(frames(sheet, row, numberOfSpriteFrames[row],
+                    fireballSpriteSize, fireballSpriteSize));
         }
+
+        return Collections.unmodifiableList(fireballSpriteImages);
     }
-    
+
+    private static List<List<SpriteFrame>> loadSnailSprites(){
+        int snailSpriteH = 20;
+        int snailSpriteW = 22;
+        List<SpriteFrame> walking = frames(new Image(SNAIL), 0,
+                SnailBody.FRAME_COUNTS[Body.WALKING], snailSpriteW, snailSpriteH);
+        return Collections.unmodifiableList(Arrays.asList(
+                null,     //Placeholder for IDLE action
+                walking,  //Matches the WALKING action enum
+                walking,  //Same sprites for the JUMPING action
+                walking)); //Same sprites for the FALLING action
+    }
+
     /**
-     * Gets the matrix of the Player's right-sprites.
-     * 
-     * @return 
-     *          Matrix of sprite images
+     * Gets the Player's right-sprites.
+     *
+     * @return
+     *          Frames of each of the player's actions
      */
-    public ArrayList<Image[]> getPlayerSpritesRight(){
-        initPlayerSprites("Right");
-        return playerSpritesRight;
+    public static List<List<SpriteFrame>> getPlayerSpritesRight(){
+        return getSheet(PLAYER_RIGHT);
     }
-    
+
     /**
-     * Gets the matrix of the Player's left-sprites.
-     * 
-     * @return 
-     *          Matrix of sprite images
+     * Gets the Player's left-sprites.
+     *
+     * @return
+     *          Frames of each of the player's actions
      */
-    public ArrayList<Image[]> getPlayerSpritesLeft(){
-        initPlayerSprites("Left");
-        return playerSpritesLeft;
+    public static List<List<SpriteFrame>> getPlayerSpritesLeft(){
+        return getSheet(PLAYER_LEFT);
     }
-    
+
     /**
-     * Gets the death sprites from file and loads them into an array.
-     * 
-     * @return 
-     *          Array of death sprites
+     * Gets the death sprites shared by every character.
+     *
+     * @return
+     *          Frames of the death animation
      */
-    public Image[] getDeathSprites(){
-        Image origDeathImage = new Image("characterimages/DeathSprites.png");
-        int size = 30;
-        numberOfSpriteFrames = new int[]{6};
-        Image[] deathSprites = new Image[numberOfSpriteFrames[0]];
-        BufferedImage deathImage = SwingFXUtils.fromFXImage(origDeathImage, null);
-        
-        for (int col = 0; col < numberOfSpriteFrames[0]; col++){
-            BufferedImage sprite = deathImage.getSubimage(
-                    col*size, 0, size, size);
-            deathSprites[col] = SwingFXUtils.toFXImage(sprite, null);
-        }
-        
-        return deathSprites;
+    public static List<SpriteFrame> getDeathSprites(){
+        return getSheet(DEATH).get(0);
     }
-    
+
     /**
-     * Gets the fireball sprites and puts them into a matrix.
-     * 
-     * @return 
-     *          Matrix of fireball sprites
+     * Gets the fireball sprites.
+     *
+     * @return
+     *          Frames of flying (0) and dissipating (1)
      */
-    public ArrayList<Image[]> getFireballSprites(){
-        int fireballSpriteSize = 16;
-        ArrayList<Image[]> fireballSpriteImages = new ArrayList<>();
-        Image origFireballImage = new Image("characterimages/Fireball.png");
-        
-        numberOfSpriteFrames = new int[]{4, 3};
-        BufferedImage fireballImage = SwingFXUtils.fromFXImage(origFireballImage, null);
-        
-        for (int row = 0; row < numberOfSpriteFrames.length; row++){
-            Image[] currentTypeOfFireballImage = new Image[numberOfSpriteFrames[row]];
-            
-            for (int col = 0; col < numberOfSpriteFrames[row]; col++){
-                int x = col*fireballSpriteSize;
-                int y = row*fireballSpriteSize;
-                int w, h;
-                w = h = fireballSpriteSize;
-                BufferedImage sprite = fireballImage.getSubimage(
-                        x, y, w, h);
-                currentTypeOfFireballImage[col] = SwingFXUtils.toFXImage(sprite, null);
-            }
-            
-            fireballSpriteImages.add(currentTypeOfFireballImage);
-        }
-        
-        return fireballSpriteImages;
+    public static List<List<SpriteFrame>> getFireballSprites(){
+        return getSheet(FIREBALL);
     }
-    
+
     /**
      * Gets the sprites for the snail enemy.
-     * 
-     * @return 
-     *          Matrix of snail sprites
+     *
+     * @return
+     *          Frames of each of the snail's actions; IDLE is null
      */
-    public ArrayList<Image[]> getSnailSprites(){
-        ArrayList<Image[]> snailSprites = new ArrayList<>();
-        int snailSpriteH = 20;
-        int snailSpriteW = 22;
-        Image origSnailImage = new Image("characterimages/SnailEnemy.png");
-        
-        numberOfSpriteFrames = new int[]{3};
-        Image[] sprites = new Image[numberOfSpriteFrames[0]];
-        BufferedImage snailImage = SwingFXUtils.fromFXImage(origSnailImage, null);
-        
-        for (int col = 0; col < numberOfSpriteFrames[0]; col++){
-            BufferedImage sprite = snailImage.getSubimage(
-                    col*snailSpriteW, 0*snailSpriteH,
-                    snailSpriteW, snailSpriteH);
-            sprites[col] = SwingFXUtils.toFXImage(sprite, null);
-        }
-        
-        snailSprites.add(null); //Placeholder for IDLE action
-        snailSprites.add(sprites); //Matches the WALKING action enum
-        snailSprites.add(sprites); //Same sprites for the JUMPING action
-        snailSprites.add(sprites); //Same sprites for the FALLING action
-        
-        return snailSprites;
+    public static List<List<SpriteFrame>> getSnailSprites(){
+        return getSheet(SNAIL);
+    }
+
+    /**
+     * Forgets every decoded sheet, so the next use of each one decodes it
+     * again. Entities that already have their sprites keep them.
+     * Used by the benchmarks to measure decoding.
+     */
+    public static void clearCache(){
+        SHEETS.clear();
     }
-    
 }
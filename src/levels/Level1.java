@@ -1,6 +1,5 @@
 package levels;
 
-import java.io.InputStream;
 import javafx.scene.image.Image;
 import javafx.scene.layout.Background;
 import javafx.scene.layout.BackgroundImage;
@@ -9,6 +8,7 @@ import javafx.scene.layout.BackgroundRepeat;
 import javafx.scene.layout.BackgroundSize;
 import platformcontrol.GameState;
 import platformcontrol.GameStateManager;
+import platformcontrol.GameStateManager.StateType;
 
 public class Level1 extends GameState{
     
@@ -24,23 +24,18 @@ public class Level1 extends GameState{
         //Player and enemies are initiated in initMap() below
         
         try {
-            InputStream in = this.getClass().getResourceAsStream("/levelresources/Level1.map");
-            initMap(in);
+            initMap(StateType.LEVEL1.mapResource);
         } catch (Exception ex) {
             ex.printStackTrace();
         }
         
         //Set a background that is the window's size
-        Image background = new Image("/levelresources/Level1background.png",
-                gsm.width, gsm.height, false, true);
+        Image background = loadBackground(StateType.LEVEL1.backgroundResource);
         BackgroundImage backgroundImage = new BackgroundImage(background,
                 BackgroundRepeat.REPEAT, BackgroundRepeat.NO_REPEAT,
                 BackgroundPosition.DEFAULT, BackgroundSize.DEFAULT);
         Background bg = new Background(backgroundImage);
         this.setBackground(bg);
-        
-        //Play background music
-        MusicPlayer.outdoorSong.playSong();
     }
     
 }
\ No newline at end of file
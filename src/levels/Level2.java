@@ -1,6 +1,5 @@
 package levels;
 
-import java.io.InputStream;
 import javafx.scene.image.Image;
 import javafx.scene.layout.Background;
 import javafx.scene.layout.BackgroundImage;
@@ -9,6 +8,7 @@ import javafx.scene.layout.BackgroundRepeat;
 import javafx.scene.layout.BackgroundSize;
 import platformcontrol.GameState;
 import platformcontrol.GameStateManager;
+import platformcontrol.GameStateManager.StateType;
 
 public class Level2 extends GameState{
     
@@ -22,23 +22,18 @@ public class Level2 extends GameState{
     @Override
     public void initObjects(){
         try {
-            InputStream in = this.getClass().getResourceAsStream("/levelresources/Level2.map");
-            initMap(in);
+            initMap(StateType.LEVEL2.mapResource);
         } catch (Exception ex) {
             ex.printStackTrace();
         }
         
         //Set a background that is the window's size
-        Image background = new Image("/levelresources/Level1background.png",
-                gsm.width, gsm.height, false, true);
+        Image background = loadBackground(StateType.LEVEL2.backgroundResource);
         BackgroundImage backgroundImage = new BackgroundImage(background,
                 BackgroundRepeat.REPEAT, BackgroundRepeat.NO_REPEAT,
                 BackgroundPosition.DEFAULT, BackgroundSize.DEFAULT);
         Background bg = new Background(backgroundImage);
         this.setBackground(bg);
-        
-        //Play background music
-        MusicPlayer.outdoorSong.playSong();
     }
     
 }
\ No newline at end of file
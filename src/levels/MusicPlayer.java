@@ -1,13 +1,11 @@
 package levels;
 
-import java.net.URISyntaxException;
 import java.net.URL;
-import javafx.scene.media.Media;
-import javafx.scene.media.MediaPlayer;
-import javafx.util.Duration;
 
 /**
- * Plays background music for the game.
+ * The game's background songs. A song is only a name; nothing is read or
+ * decoded until MusicService plays or prefetches it, so touching this enum
+ * is free.
  *
  * @author dPow
  */
@@ -16,55 +14,22 @@ public enum MusicPlayer {
     bossSong("boss_song.mp3"),
     happySong("happy_song.mp3");
 
-    Media media;
-    MediaPlayer player;
-    
+    private final String songName;
+
     /**
-     * Constructor to initialize the given song in the game.
-     * 
-     * @param songName 
-     *          Name of the song to be played during that level
+     * @param songName
+     *          File name of the song in the music folder
      */
     private MusicPlayer(String songName) {
-        URL song = this.getClass().getResource("/music/" + songName);
-        try {
-            media = new Media(song.toURI().toString());
-            player = new MediaPlayer(media);
-        } catch (URISyntaxException ex) {
-            ex.printStackTrace();
-        }
+        this.songName = songName;
     }
-    
-    /**
-     * Play the specified song.
-     */
-    public void playSong() {
-        player.play();
-        //When song finishes, loop it by seeking to the beginning
-        player.setOnEndOfMedia(new Runnable() {
-            @Override
-            public void run() {
-                player.seek(Duration.ZERO);
-            }
-        });
-    }
-    
-    /**
-     * Stop the specified songs.
-     */
-    public void stopSong() {
-        player.stop();
-    }
-    
+
     /**
-     * Stop all songs from playing.
-     * This is mainly only used when changing/restarting
-     * a level.
+     * @return
+     *          Location of the song's file, or null if it's missing
      */
-    public static void stopAllSongs() {
-        for (MusicPlayer songPlayer : MusicPlayer.values()) {
-            songPlayer.stopSong();
-        }
+    public URL getResource() {
+        return MusicPlayer.class.getResource("/music/" + songName);
     }
-    
+
 }
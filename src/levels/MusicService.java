@@ -0,0 +1,233 @@
+package levels;
+
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.EnumSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import javafx.animation.KeyFrame;
+import javafx.animation.KeyValue;
+import javafx.animation.Timeline;
+import javafx.application.Platform;
+import javafx.scene.media.Media;
+import javafx.scene.media.MediaPlayer;
+import javafx.util.Duration;
+
+/**
+ * Plays the background music. Songs are opened the first time they're
+ * needed, on a background thread, so neither startup nor the JavaFX thread
+ * waits for a song to be decoded. The last few songs opened are kept ready
+ * to play again; older ones are disposed.
+ *
+ * Changing songs crossfades: the old song fades out while the new one fades
+ * in. Fades are animations, so nothing waits for them. Playing the song
+ * that is already playing (or still fading out) keeps it going instead of
+ * restarting it.
+ *
+ * The methods of this class must be called on the JavaFX thread.
+ *
+ * @author dPow
+ */
+public class MusicService {
+    public static final Duration FADE_TIME = Duration.millis(800);
+    private static final int CACHED_SONGS = 2; //Songs kept open, including the one playing
+
+    private final ExecutorService loader = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "Music loader");
+        thread.setDaemon(true); //Don't keep the game open
+        return thread;
+    });
+    //Opened songs, least recently played first
+    private final LinkedHashMap<MusicPlayer, MediaPlayer> players =
+            new LinkedHashMap<>(4, 0.75f, true);
+    private final EnumSet<MusicPlayer> loading = EnumSet.noneOf(MusicPlayer.class);
+    private final Map<MediaPlayer, Timeline> fades = new IdentityHashMap<>();
+    private MusicPlayer song; //Song that should be playing, null for silence
+    private MediaPlayer current; //Player of that song once it has started
+    private boolean closed;
+
+    /**
+     * Crossfades to a song. If the song isn't open yet, the old song fades
+     * out right away and the new one fades in once it's ready.
+     *
+     * @param song
+     *          The song to play, or null to fade out to silence
+     */
+    public void play(MusicPlayer song) {
+        if (song == this.song || closed) {
+            return;
+        }
+        fadeOut();
+        this.song = song;
+        if (song == null) {
+            return;
+        }
+        MediaPlayer player = players.get(song);
+        if (player != null) {
+            start(player);
+        } else {
+            open(song);
+        }
+    }
+
+    /**
+     * Fades out the song that is playing.
+     */
+    public void stop() {
+        play(null);
+    }
+
+    /**
+     * Opens a song in the background so that playing it later starts right
+     * away.
+     *
+     * @param song
+     *          The song to open; null does nothing
+     */
+    public void prefetch(MusicPlayer song) {
+        if (song != null && !closed && !players.containsKey(song)) {
+            open(song);
+        }
+    }
+
+    /**
+     * Starts opening a song on the loader thread unless it's already being
+     * opened.
+     */
+    private void open(MusicPlayer song) {
+        if (!loading.add(song)) {
+            return;
+        }
+        loader.execute(() -> {
+            MediaPlayer player = null;
+            try {
+                URL resource = song.getResource();
+                if (resource == null) {
+                    throw new IllegalStateException("Missing song " + song);
+                }
+                player = new MediaPlayer(new Media(resource.toURI().toString()));
+                player.setCycleCount(MediaPlayer.INDEFINITE);
+            } catch (URISyntaxException | RuntimeException ex) {
+                //MediaException if the platform can't play it
+                ex.printStackTrace();
+            }
+            MediaPlayer opened = player;
+            Platform.runLater(() -> opened(song, opened));
+        });
+    }
+
+    /**
+     * Keeps a song that was just opened and starts it if it's still the
+     * one that should be playing.
+     *
+     * @param player
+     *          The song's player, or null if it couldn't be opened
+     */
+    private void opened(MusicPlayer song, MediaPlayer player) {
+        loading.remove(song);
+        if (player == null) {
+            return;
+        }
+        if (closed) {
+            player.dispose();
+            return;
+        }
+        player.setOnError(() -> player.getError().printStackTrace());
+        players.put(song, player);
+        if (song == this.song && current == null) {
+            start(player);
+        }
+        evict();
+    }
+
+    /**
+     * Disposes the least recently played songs until only CACHED_SONGS are
+     * open. Songs that are playing or fading are kept.
+     */
+    private void evict() {
+        Iterator<MediaPlayer> it = players.values().iterator();
+        int excess = players.size() - CACHED_SONGS;
+        while (excess > 0 && it.hasNext()) {
+            MediaPlayer player = it.next();
+            if (player != current && !fades.containsKey(player)) {
+                it.remove();
+                player.dispose();
+                excess--;
+            }
+        }
+    }
+
+    /**
+     * Fades a song in. A song that is still fading out carries on from
+     * where it is; a stopped one starts from the beginning.
+     */
+    private void start(MediaPlayer player) {
+        current = player;
+        if (player.getStatus() != MediaPlayer.Status.PLAYING) {
+            player.setVolume(0);
+            player.play();
+        }
+        fade(player, 1, null);
+    }
+
+    /**
+     * Fades out the current song and stops it once it's silent.
+     */
+    private void fadeOut() {
+        if (current != null) {
+            MediaPlayer player = current;
+            current = null;
+            fade(player, 0, () -> {
+                player.stop();
+                evict();
+            });
+        }
+    }
+
+    /**
+     * Animates a player's volume, replacing any fade it was already in.
+     *
+     * @param volume
+     *          Volume at the end of the fade, from 0 to 1
+     * @param onFinished
+     *          Run when the fade ends, unless it was replaced; can be null
+     */
+    private void fade(MediaPlayer player, double volume, Runnable onFinished) {
+        Timeline old = fades.remove(player);
+        if (old != null) {
+            old.stop(); //Its onFinished doesn't run
+        }
+        Timeline timeline = new Timeline(new KeyFrame(FADE_TIME,
+                new KeyValue(player.volumeProperty(), volume)));
+        timeline.setOnFinished(e -> {
+            fades.remove(player);
+            if (onFinished != null) {
+                onFinished.run();
+            }
+        });
+        fades.put(player, timeline);
+        timeline.play();
+    }
+
+    /**
+     * Stops the music and closes every song. Used when the game is closed.
+     */
+    public void shutdown() {
+        closed = true;
+        loader.shutdownNow();
+        for (Timeline timeline : fades.values()) {
+            timeline.stop();
+        }
+        fades.clear();
+        for (MediaPlayer player : players.values()) {
+            player.dispose();
+        }
+        players.clear();
+        current = null;
+        song = null;
+    }
+}
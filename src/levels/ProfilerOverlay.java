@@ -0,0 +1,67 @@
+package levels;
+
+import javafx.scene.Group;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+import javafx.scene.text.Text;
+import platformcontrol.GameLoop;
+import simulation.TickProfiler;
+import static platformcontrol.GameState.MAP_TILE_SIZE;
+
+/**
+ * Shows the tick profiler's timings, and how many ticks the game loop ran
+ * late or dropped, next to the HUD. The text is only
+ * rebuilt every few frames so that the overlay doesn't slow down the
+ * frames it's measuring.
+ *
+ * @author dPow
+ */
+public class ProfilerOverlay extends Group {
+    private static final int FRAMES_PER_UPDATE = 30;
+
+    private final Text text;
+    private int framesUntilUpdate;
+
+    /**
+     * Creates a hidden overlay.
+     */
+    public ProfilerOverlay() {
+        text = new Text();
+        text.setFont(Font.font("monospaced", 12));
+        text.setFill(Color.WHITE);
+        text.setX(MAP_TILE_SIZE * 2 + 10);
+        text.setY(20);
+        getChildren().add(text);
+        setVisible(false);
+        setMouseTransparent(true);
+    }
+
+    /**
+     * Refreshes the timings if the overlay is showing and it's been
+     * long enough since the last refresh.
+     *
+     * @param profiler
+     *          Profiler whose timings are shown
+     * @param loop
+     *          Game loop whose tick counters are shown
+     */
+    public void update(TickProfiler profiler, GameLoop loop) {
+        if (!isVisible() || --framesUntilUpdate > 0) {
+            return;
+        }
+        framesUntilUpdate = FRAMES_PER_UPDATE;
+        text.setText(profiler.getSummary() + loop.getSummary());
+    }
+
+    /**
+     * Shows or hides the overlay. It's refreshed on the next frame after
+     * being shown.
+     *
+     * @param visible
+     *          True to show the overlay
+     */
+    public void show(boolean visible) {
+        setVisible(visible);
+        framesUntilUpdate = 0;
+    }
+}
@@ -0,0 +1,157 @@
+package platformcontrol;
+
+import javafx.scene.image.ImageView;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.PixelReader;
+import javafx.scene.image.PixelWriter;
+import javafx.scene.image.WritableImage;
+import simulation.CollisionLayer;
+
+/**
+ * Pre-renders the map into a few wide images. Each image (chunk) holds
+ * CHUNK_COLUMNS columns of tiles, the same chunks the World streams the
+ * map in, so JavaFX only has to draw a couple of large images each frame
+ * instead of hundreds of small ones.
+ *
+ * Only the chunks on screen are baked, into a fixed set of images that are
+ * reused as the camera moves, so the layer's size doesn't depend on the
+ * map's width. A chunk is baked when it first comes on screen, which is
+ * after the World has loaded it.
+ *
+ * Chunks are drawn at the tile set's resolution and scaled up by their
+ * ImageView, the same way individual tiles were.
+ *
+ * @author dPow
+ */
+public class BakedTileLayer extends TileLayer {
+    public static final int CHUNK_COLUMNS = CollisionLayer.CHUNK_COLUMNS;
+
+    private final CollisionLayer tiles;
+    private final TileSet tileSet;
+    private final int tileSize;
+    private final int sourceSize; //Size of a tile in the tile set
+    private final double chunkWidth; //On screen
+    private final double viewportWidth;
+    private final ImageView[] views; //ImageView[slot]
+    private final int[] slotChunks; //Which chunk each slot is showing, -1 if none
+    private final int[] blank; //Transparent pixels of one tile
+
+    /**
+     * Makes enough images for the chunks on screen and bakes the chunks at
+     * the start of the map.
+     *
+     * @param tiles
+     *          Tile numbers of the map
+     * @param tileSet
+     *          Tile images
+     * @param tileSize
+     *          Width and height of each tile on screen
+     * @param originY
+     *          World Y-coordinate of the top row of the map
+     * @param viewportWidth
+     *          Width of the screen
+     */
+    public BakedTileLayer(CollisionLayer tiles, TileSet tileSet, int tileSize,
+            double originY, double viewportWidth) {
+        this.tiles = tiles;
+        this.tileSet = tileSet;
+        this.tileSize = tileSize;
+        this.viewportWidth = viewportWidth;
+        this.chunkWidth = CHUNK_COLUMNS*tileSize;
+        sourceSize = tileSet.getTileSize();
+        blank = new int[sourceSize*sourceSize];
+
+        //A screen can show parts of one more chunk than it fits
+        int slots = Math.min((int) Math.ceil(viewportWidth / chunkWidth) + 1,
+                tiles.getChunkCount());
+        views = new ImageView[slots];
+        slotChunks = new int[slots];
+        for (int slot = 0; slot < slots; slot++) {
+            ImageView view = new ImageView();
+            view.setY(originY);
+            view.setFitHeight(tiles.getRows()*tileSize);
+            view.setVisible(false);
+            views[slot] = view;
+            slotChunks[slot] = -1;
+            getChildren().add(view);
+        }
+        update(0);
+    }
+
+    /**
+     * Shows the chunks that are on screen, baking the ones that just came
+     * into view.
+     *
+     * @param cameraX
+     *          Screen X-coordinate of the world's left edge
+     */
+    @Override
+    public void update(double cameraX) {
+        int slots = views.length;
+        int firstChunk = (int) Math.floor(-cameraX / chunkWidth);
+        firstChunk = Math.max(0, Math.min(firstChunk, tiles.getChunkCount() - slots));
+        for (int chunk = firstChunk; chunk < firstChunk + slots; chunk++) {
+            int slot = chunk % slots;
+            if (slotChunks[slot] != chunk) {
+                bake(slot, chunk);
+            }
+            ImageView view = views[slot];
+            if (view.getImage() != null) {
+                double screenX = cameraX + chunk*chunkWidth;
+                view.setVisible(screenX < viewportWidth && screenX + chunkWidth > 0);
+            }
+        }
+    }
+
+    /**
+     * Draws a chunk's tiles into a slot's image. The image is reused if it's
+     * the right size.
+     *
+     * @param slot
+     *          Index of the slot
+     * @param chunk
+     *          Index of the chunk to draw
+     */
+    private void bake(int slot, int chunk) {
+        slotChunks[slot] = chunk;
+        ImageView view = views[slot];
+        int firstColumn = chunk*CHUNK_COLUMNS;
+        int columns = tiles.getChunkColumns(chunk);
+        boolean empty = true;
+        for (int row = 0; row < tiles.getRows() && empty; row++) {
+            for (int col = 0; col < columns && empty; col++) {
+                empty = tiles.getTile(row, firstColumn + col) == 0;
+            }
+        }
+        if (empty) {
+            view.setImage(null);
+            view.setVisible(false);
+            return;
+        }
+
+        WritableImage image = (WritableImage) view.getImage();
+        if (image == null || image.getWidth() != columns*sourceSize) {
+            image = new WritableImage(columns*sourceSize, tiles.getRows()*sourceSize);
+        }
+        //Tiles are copied straight from the tile set image
+        PixelReader reader = tileSet.getSheet().getPixelReader();
+        PixelWriter writer = image.getPixelWriter();
+        for (int row = 0; row < tiles.getRows(); row++) {
+            for (int col = 0; col < columns; col++) {
+                int tile = tiles.getTile(row, firstColumn + col);
+                if (tile == 0) {
+                    //Blank tiles are fully transparent
+                    writer.setPixels(col*sourceSize, row*sourceSize, sourceSize, sourceSize,
+                            PixelFormat.getIntArgbInstance(), blank, 0, sourceSize);
+                } else {
+                    writer.setPixels(col*sourceSize, row*sourceSize,
+                            sourceSize, sourceSize, reader,
+                            tileSet.getSourceX(tile), tileSet.getSourceY(tile));
+                }
+            }
+        }
+        view.setImage(image);
+        view.setX(firstColumn*tileSize);
+        view.setFitWidth(columns*tileSize);
+    }
+}
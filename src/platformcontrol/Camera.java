@@ -0,0 +1,70 @@
+package platformcontrol;
+
+import javafx.scene.Group;
+import simulation.World;
+
+/**
+ * Scrolls the level by translating a single group that holds the map
+ * and every entity. Everything inside the group keeps its world
+ * coordinates, so scrolling costs the same no matter how big the
+ * level is.
+ *
+ * The simulation decides how far the map has scrolled (World.moveMap()),
+ * but the group is only moved when render() is called so that it can be
+ * drawn part-way between ticks.
+ *
+ * @author dPow
+ */
+public class Camera {
+    private final Group world;
+    private final World model;
+    private double renderX; //Where the world is currently drawn
+
+    /**
+     * Creates a camera that follows the given world's scrolling.
+     *
+     * @param world
+     *          Group holding everything that moves with the map
+     * @param model
+     *          Simulation whose camera position is drawn
+     */
+    public Camera(Group world, World model) {
+        this.world = world;
+        this.model = model;
+        this.renderX = model.getCameraX();
+    }
+
+    /**
+     * Gets how far the world has been scrolled as of the last tick.
+     *
+     * @return
+     *          Screen X-coordinate of the world's left edge
+     */
+    public double getX() {
+        return model.getCameraX();
+    }
+
+    /**
+     * Moves the world group to where the camera is between the
+     * previous tick and the current one.
+     *
+     * @param alpha
+     *          How far between the last two ticks to draw, from 0 to 1
+     */
+    public void render(double alpha) {
+        double previousX = model.getPreviousCameraX();
+        renderX = previousX + (model.getCameraX() - previousX)*alpha;
+        world.setTranslateX(renderX);
+    }
+
+    /**
+     * Gets where the world is actually drawn, which can be a little
+     * behind getX() between ticks.
+     *
+     * @return
+     *          Screen X-coordinate of the world group's left edge
+     */
+    public double getRenderX() {
+        return renderX;
+    }
+}
@@ -10,7 +10,6 @@ import javafx.scene.paint.Color;
 import javafx.scene.text.Font;
 import javafx.scene.text.Text;
 import javafx.scene.text.TextAlignment;
-import levels.MusicPlayer;
 import platformcontrol.GameStateManager.StateType;
 
 /**
@@ -43,7 +42,6 @@ public class FinishedGameScreen extends GameState {
         
         initKeyListener();
         initObjects();
-        MusicPlayer.happySong.playSong();
     }
 
     @Override
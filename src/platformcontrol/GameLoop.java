@@ -0,0 +1,251 @@
+package platformcontrol;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.atomic.AtomicReference;
+import javafx.animation.AnimationTimer;
+
+/**
+ * Runs the current level's game logic at a fixed rate, independent of how
+ * often JavaFX draws frames. Each frame, the time since the last frame is
+ * added to an accumulator and GameState.runGame() is called once for every
+ * whole tick that fits in it. Whatever is left over is used to draw the
+ * entities part-way between their last two positions so that movement
+ * looks smooth.
+ *
+ * Everything runs on the JavaFX application thread, so ticks can never
+ * queue up faster than they're processed: if the thread stalls, the
+ * missed time is collapsed into the next frame, which runs a bounded
+ * number of catch-up ticks. Catch-up ticks (run late, coalesced into a
+ * slow frame) and ticks that are skipped entirely (dropped) are counted
+ * for each level, and shown with the tick profiler, so that stalls can be
+ * seen. The timing is done by a TickClock.
+ *
+ * There is one loop for the whole game, owned by the GameStateManager.
+ * Levels are attached to it with start(), so only one level can ever be
+ * running and restarting a level doesn't create any threads or timers.
+ *
+ * @author dPow
+ */
+public class GameLoop {
+    public static final int DEFAULT_TICK_RATE = 100; //Ticks per second
+    public static final int DEFAULT_MAX_CATCH_UP_TICKS = 5;
+    public static final int NOMINAL_FRAME_RATE = 60; //JavaFX pulses per second
+    //A gap between frames longer than this is a stall (GC, level transition,
+    //fade, etc.). Replaying it would just make enemies jump, so it's dropped.
+    public static final long STALL_THRESHOLD = 250_000_000L;
+
+    public enum State {STOPPED, RUNNING, PAUSED, SHUTDOWN;}
+
+    private final AtomicReference<State> state = new AtomicReference<>(State.STOPPED);
+    private final AnimationTimer timer;
+    private final TickClock clock; //Only used on the JavaFX thread
+    private volatile GameState world; //Level currently attached to the loop
+    private volatile long restartRequestTime; //0 unless a restart is being timed
+    private volatile long lastRestartLatency;
+
+    /**
+     * Creates a loop using the default catch-up limit and the tick rate
+     * from the dragongame.tickRate system property (or the default).
+     */
+    public GameLoop() {
+        this(Integer.getInteger("dragongame.tickRate", DEFAULT_TICK_RATE),
+                DEFAULT_MAX_CATCH_UP_TICKS);
+    }
+
+    /**
+     * Creates a stopped loop.
+     *
+     * @param tickRate
+     *          Number of times per second runGame() is called
+     * @param maxCatchUpTicks
+     *          Most ticks that can be run in one frame to catch up after
+     *          a slow frame. Any time beyond that is dropped so that the
+     *          game slows down instead of freezing.
+     */
+    public GameLoop(int tickRate, int maxCatchUpTicks) {
+        this.clock = new TickClock(1_000_000_000L / tickRate, maxCatchUpTicks,
+                1_000_000_000L / NOMINAL_FRAME_RATE);
+        this.timer = new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                onFrame(now);
+            }
+        };
+    }
+
+    /**
+     * Starts running the given level, replacing whichever level was
+     * running before. The first tick runs on the next frame.
+     *
+     * @param level
+     *          Level to run
+     */
+    public void start(GameState level) {
+        if (state.get() == State.SHUTDOWN) {
+            return;
+        }
+        world = level;
+        clock.reset();
+        clock.resetStats();
+        lastRestartLatency = 0; //Set on the first tick if this is a restart
+        state.set(State.RUNNING);
+        timer.start();
+    }
+
+    /**
+     * Pauses the current level. Does nothing unless the loop is running.
+     */
+    public void pause() {
+        if (state.compareAndSet(State.RUNNING, State.PAUSED)) {
+            timer.stop();
+        }
+    }
+
+    /**
+     * Resumes a paused level. Time spent paused isn't simulated.
+     * Does nothing unless the loop is paused, so a level that was
+     * stopped (won or reset) can't be resumed.
+     */
+    public void resume() {
+        if (state.compareAndSet(State.PAUSED, State.RUNNING)) {
+            clock.reset();
+            timer.start();
+        }
+    }
+
+    /**
+     * Stops running the current level and detaches it from the loop.
+     */
+    public void stop() {
+        State current = state.get();
+        if (current != State.SHUTDOWN && state.compareAndSet(current, State.STOPPED)) {
+            timer.stop();
+            world = null;
+        }
+    }
+
+    /**
+     * Stops the loop for good. Used when the game is closed.
+     */
+    public void shutdown() {
+        state.set(State.SHUTDOWN);
+        timer.stop();
+        world = null;
+    }
+
+    public State getState() {
+        return state.get();
+    }
+
+    /**
+     * Marks the start of a level restart. The time until the restarted
+     * level's first tick is saved as the restart latency.
+     */
+    public void beginRestart() {
+        restartRequestTime = System.nanoTime();
+    }
+
+    /**
+     * Gets how long restarting the current level took, from beginRestart()
+     * until its first tick (which includes building the level).
+     *
+     * @return
+     *          Restart latency in nanoseconds, 0 if the level wasn't
+     *          restarted or hasn't run a tick yet
+     */
+    public long getLastRestartLatency() {
+        return lastRestartLatency;
+    }
+
+    /**
+     * Called by JavaFX once per frame.
+     *
+     * @param now
+     *          Time of the current frame in nanoseconds
+     */
+    private void onFrame(long now) {
+        GameState level = world;
+        if (level == null || state.get() != State.RUNNING) {
+            return;
+        }
+        int ticks = clock.beginFrame(now);
+        //runGame() can end the level (win, reset), which detaches it from the loop
+        for (int i = 0; i < ticks; i++) {
+            level.runGame();
+            if (world != level) {
+                //The clock now belongs to the next level, so leave it alone
+                return;
+            }
+            clock.tickRun();
+            if (restartRequestTime != 0) {
+                lastRestartLatency = System.nanoTime() - restartRequestTime;
+                restartRequestTime = 0;
+            }
+        }
+        level.render(clock.endFrame());
+    }
+
+    public long getTicksRun() {
+        return clock.getTicksRun();
+    }
+
+    /**
+     * Gets how many catch-up ticks were run late in a slow frame: ticks
+     * beyond what a frame at NOMINAL_FRAME_RATE runs. A steady frame rate
+     * never coalesces any.
+     *
+     * @return
+     *          Number of coalesced ticks since the level was started
+     */
+    public long getTicksCoalesced() {
+        return clock.getTicksCoalesced();
+    }
+
+    /**
+     * Gets how many ticks were never run because the loop stalled or
+     * fell more than the catch-up limit behind.
+     *
+     * @return
+     *          Number of dropped ticks since the level was started
+     */
+    public long getTicksDropped() {
+        return clock.getTicksDropped();
+    }
+
+    /**
+     * Writes the tick counters as rows of a TickProfiler CSV, with the
+     * number in the count column. If the level was restarted, the restart
+     * latency is written as a RESTART row timed once.
+     *
+     * @param out
+     *          Where to write the rows
+     * @throws IOException
+     *          If writing fails
+     */
+    public void writeCsv(Writer out) throws IOException {
+        out.write(String.format("TICKS_RUN,%d,,,,%n", getTicksRun()));
+        out.write(String.format("TICKS_COALESCED,%d,,,,%n", getTicksCoalesced()));
+        out.write(String.format("TICKS_DROPPED,%d,,,,%n", getTicksDropped()));
+        if (lastRestartLatency > 0) {
+            double us = lastRestartLatency / 1000.0;
+            out.write(String.format("RESTART,1,%.3f,%.3f,%.3f,%.3f%n", us, us, us, us));
+        }
+    }
+
+    /**
+     * Summarizes the tick counters for showing on screen.
+     *
+     * @return
+     *          Ticks run, coalesced and dropped, and the restart latency
+     *          if the level was restarted
+     */
+    public String getSummary() {
+        String summary = String.format("ticks run/coalesced/dropped %d/%d/%d%n",
+                getTicksRun(), getTicksCoalesced(), getTicksDropped());
+        if (lastRestartLatency > 0) {
+            summary += String.format("restart %.1f ms%n", lastRestartLatency / 1e6);
+        }
+        return summary;
+    }
+}
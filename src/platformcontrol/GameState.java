@@ -1,22 +1,26 @@
 package platformcontrol;
 
 import characters.Entity;
+import characters.Fireball;
 import characters.Player;
 import characters.SnailEnemy;
-import java.awt.image.BufferedImage;
-import java.io.BufferedReader;
+import characters.SnailLayer;
+import characters.SoundEffect;
+import characters.SpriteFrame;
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.FileWriter;
+import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.util.ArrayList;
+import java.io.OutputStream;
+import java.util.Iterator;
 import java.util.List;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ForkJoinPool;
 import javafx.animation.FadeTransition;
-import javafx.application.Platform;
-import javafx.embed.swing.SwingFXUtils;
 import javafx.scene.Group;
 import javafx.scene.Node;
 import javafx.scene.image.Image;
-import javafx.scene.image.ImageView;
 import javafx.scene.input.KeyCode;
 import javafx.scene.input.KeyEvent;
 import javafx.scene.layout.Pane;
@@ -27,57 +31,91 @@ import javafx.scene.text.Text;
 import javafx.scene.text.TextAlignment;
 import javafx.util.Duration;
 import levels.HUD;
+import levels.ProfilerOverlay;
 import platformcontrol.GameStateManager.StateType;
+import simulation.Body;
+import simulation.BodyEnemyGroup;
+import simulation.ChunkSource;
+import simulation.FireballBody;
+import simulation.InputRecording;
+import simulation.MapLoader;
+import simulation.ParallelEnemyUpdater;
+import simulation.SnailBody;
+import simulation.SnailStore;
+import simulation.Sound;
+import simulation.TickProfiler;
+import simulation.TickProfiler.Phase;
+import simulation.World;
 
-abstract public class GameState extends Pane{
+abstract public class GameState extends Pane implements World.Listener{
     public GameStateManager gsm;
     protected double w;//Used only for initObjects
     protected double h;//Used only for initObjects
     
     //GameMap and TileSet
     //int[row][col] i.e. int[y][x]
-    public double mapX; //Top left corner of map. Used to relocate the images.
-    public double mapY; //Top left corner of map. Used to relocate the images.
+    public double mapY; //Top of the map in world coordinates. The left edge is always 0.
     public double mapWidth;
-    public Group map = new Group(); //Used to hold ImageViews for the levels
-    public List<Integer> mapTileNumbers; //Used to get tile # for map group
-                                         //in order to know if tile is ghost tile or not
-                                         //to calculate character collisions
+    public TileLayer map; //Draws the tiles that are on screen
+    public Group worldGroup = new Group(); //Holds the map and entities; scrolled by the camera
+    public Camera camera;
     protected int[][] mapTiles; //Raw tile numbers in the map
-    protected Image[][] tileSet; //Used in putting images on the screen
+    protected ChunkSource mapChunks; //The map, when it's streamed instead of read into mapTiles
+    protected TileSet tileSet; //Used in putting images on the screen
     protected int tileSize;
     protected int numTileColumns;
     public int numDecorationTiles; //Number of tiles to not include in entity collision
     
-    //Thread the game runs on
-    public static Thread gameThread;
+    //Game logic of the level; this class only draws it
+    public World model;
+    protected String mapResource; //Resource path of the level's .map file
+    protected LevelAssets assets; //Prefetched assets of the level, if they were ready
+    public InputRecording recording; //Inputs of this level, if recording
+    
     //Used to check if game is paused
     public boolean running;
-    //Synchronized thread lock monitor for pausing game
-    public final Object threadLockMonitor; //
     
     //Characters
     public Player player;
     public HUD hud;
+    public ProfilerOverlay profilerOverlay;
+    //Created the first time profiling is turned on in this level
+    public TickProfiler profiler;
     public Group entities = new Group();
     public Group enemies = new Group();
+    public SnailLayer snailLayer; //Draws the snails when they are packed
     
     //Used in Entity class for the death sequence
-    public Image blankTile;
+    public SpriteFrame blankTile;
     
     private static final int NUMTILEROWS = 2;
-    public static final int PLAYER_SIZE = 80;
-    public static final int ENEMY_SIZE = 50;
-    public static final int MAP_TILE_SIZE = 50;
-    public static final List<Integer> WINNING_TILES = new ArrayList<>();
-    public static final List<Integer> ENEMY_TILES = new ArrayList<>();
-    public static final int PLAYER_TILE = 25;
+    private static final String TILE_SET = "/levelresources/TileSet.png";
+    public static final int PLAYER_SIZE = World.PLAYER_SIZE;
+    public static final int ENEMY_SIZE = World.ENEMY_SIZE;
+    public static final int MAP_TILE_SIZE = World.MAP_TILE_SIZE;
+    public static final List<Integer> WINNING_TILES = World.WINNING_TILES;
+    public static final List<Integer> ENEMY_TILES = World.ENEMY_TILES;
+    public static final int PLAYER_TILE = World.PLAYER_TILE;
+    //Pre-render the map into a few large images instead of an ImageView per tile
+    public static boolean bakeStaticTiles =
+            Boolean.parseBoolean(System.getProperty("dragongame.bakeTiles", "true"));
+    //Store snails in parallel arrays instead of one body and ImageView each
+    public static boolean packEnemies =
+            Boolean.getBoolean("dragongame.packedEnemies");
+    //Start every level with the tick profiler on
+    public static boolean profileTicks =
+            Boolean.getBoolean("dragongame.profile");
+    //Update large numbers of enemies on every core
+    public static boolean parallelEnemies =
+            Boolean.getBoolean("dragongame.parallelEnemies");
+    //Save the inputs of every level played so they can be replayed
+    public static boolean recordInput =
+            Boolean.getBoolean("dragongame.record");
     
     /**
      * Constructor used in MenuScreen/LoadScreen classes.
      */
     public GameState(){
-        threadLockMonitor = new Object();
     }
     
     /**
@@ -91,45 +129,15 @@ abstract public class GameState extends Pane{
         //w and h are only necessary for initObjects(), not for
         //player and enemy movement
         w = gsm.width;
-        h = gsm.height - 0.25*GameState.PLAYER_SIZE; //positioning the map inside
-                                                     //inside the stage perfectly
-        WINNING_TILES.add(15);
-        WINNING_TILES.add(16);
-        ENEMY_TILES.add(26);
-        //Synchronized thread lock monitor for pausing game
-        threadLockMonitor = new Object();
+        h = getLevelHeight(gsm.height);
         setHeight(h);
         setWidth(w);
         
         initObjects();
         
         running = true;
-        GameState.gameThread = new Thread(new Runnable() {
-            @Override
-            public void run() {
-                while (true) {
-                    synchronized (threadLockMonitor) {
-                        if (!running) {
-                            try {
-                                threadLockMonitor.wait();
-                            } catch (InterruptedException ex) {
-                                ex.printStackTrace();
-                            }
-                        }
-                        //if running
-                        try {
-                            Platform.runLater(() -> runGame());
-                            TimeUnit.MILLISECONDS.sleep(10);
-                            threadLockMonitor.notify();
-                        } catch (InterruptedException ex) {
-                            ex.printStackTrace();
-                        }
-                    }
-                }
-            }
-        });
-        
-        GameState.gameThread.start();
+        //Calls runGame() at a fixed rate on the JavaFX thread
+        gsm.gameLoop.start(this);
     }
     
     /**
@@ -137,6 +145,19 @@ abstract public class GameState extends Pane{
      */
     abstract public void initObjects();
     
+    /**
+     * Gets the height a level is given in a window.
+     * 
+     * @param windowHeight
+     *          Height of the window
+     * @return
+     *          Height of the level
+     */
+    public static double getLevelHeight(double windowHeight){
+        //positioning the map inside the stage perfectly
+        return windowHeight - 0.25*GameState.PLAYER_SIZE;
+    }
+    
     /**
      * Loads the map for the given level by calling
      * all appropriate methods.
@@ -145,36 +166,208 @@ abstract public class GameState extends Pane{
      *          InputStream for .map file
      */
     public final void initMap(InputStream in){
-        loadTiles();       //Put tiles from sheet into Image matrix
+        loadTiles();       //Get the shared tile set
         loadMapSheet(in); //Load the saved matrix of int values from resources
         loadMap();       //Make images for each tile and put them on screen
-        mapWidth = mapTiles[0].length*MAP_TILE_SIZE;
     }
     
     /**
-     * Updates every entity in the game.
+     * Loads the map for the given level from a resource. The resource
+     * path is also the level's ID in input recordings.
+     * 
+     * The compiled binary map is streamed if the build made one.
+     * 
+     * @param resource
+     *          Resource path of the .map file
+     */
+    public final void initMap(String resource){
+        mapResource = resource;
+        if (gsm != null){
+            assets = gsm.prefetcher.take(resource, getWidth(), getHeight());
+        }
+        if (assets == null){
+            loadTiles();
+            try{
+                mapChunks = MapLoader.openChunks(resource);
+            } catch(IOException e){
+                e.printStackTrace();
+            }
+            loadMap();
+        } else {
+            //Already read, decoded and built in the background
+            tileSet = assets.getTileSet();
+            tileSize = tileSet.getTileSize();
+            numTileColumns = tileSet.getColumns();
+            numDecorationTiles = numTileColumns;
+            loadMap();
+        }
+    }
+    
+    /**
+     * Gets the level's background image, scaled to the window.
+     * 
+     * @param resource
+     *          Resource path of the image
+     * @return
+     *          The prefetched background if there is one, else the image
+     *          loaded now
+     */
+    protected Image loadBackground(String resource){
+        if (assets != null){
+            return assets.getBackground();
+        }
+        return new Image(resource, gsm.width, gsm.height, false, true);
+    }
+    
+    /**
+     * Updates every body in the game. Called once per tick by the game loop.
      */
     public void runGame(){
-        player.updateEntity();
-        for (Node n : enemies.getChildren()){
-            ((Entity) n).updateEntity();
+        model.step();
+    }
+    
+    /**
+     * Draws the world part-way between the previous tick and the current one.
+     * Called once per frame by the game loop.
+     * 
+     * @param alpha
+     *          How far between the last two ticks to draw, from 0 to 1
+     */
+    public void render(double alpha){
+        TickProfiler profiler = model.getProfiler();
+        long start = profiler != null ? System.nanoTime() : 0;
+        camera.render(alpha);
+        map.update(camera.getRenderX());
+        syncEntities(entities.getChildren().iterator(), alpha);
+        syncEntities(enemies.getChildren().iterator(), alpha);
+        if (snailLayer != null){
+            snailLayer.update(alpha, camera.getRenderX());
+        }
+        long time = profiler != null ? System.nanoTime() : 0;
+        if (model.getPlayer().isAlive()){
+            hud.updateHUD(model.getPlayer().getHealth(), model.getPlayer().getMaxHealth(),
+                    model.getPlayer().getFireEnergy(), model.getPlayer().getMaxFireEnergy());
+        }
+        if (profiler != null){
+            profiler.lap(Phase.HUD, time);
+            profiler.lap(Phase.RENDER, start);
+            profilerOverlay.update(profiler, gsm.gameLoop);
+        }
+    }
+    
+    /**
+     * Turns the tick profiler and its overlay on or off. The times
+     * recorded so far are kept while it's off.
+     */
+    public void toggleProfiler(){
+        if (model == null){
+            return;
+        }
+        if (model.getProfiler() == null){
+            if (profiler == null){
+                profiler = new TickProfiler();
+            }
+            model.setProfiler(profiler);
+            profilerOverlay.show(true);
+        } else {
+            model.setProfiler(null);
+            profilerOverlay.show(false);
+        }
+    }
+    
+    /**
+     * Called when the game switches away from this state. If the level
+     * was profiled, its times and the game loop's tick counters are
+     * saved to a CSV file in the working directory, and if its inputs
+     * were recorded, they are saved next to it.
+     */
+    public void exit(){
+        if (gsm == null){
+            return;
+        }
+        String name = gsm.getCurrentState() + "-" + System.currentTimeMillis();
+        if (profiler != null){
+            String file = "./DragonProfile-" + name + ".csv";
+            try (BufferedWriter writer = new BufferedWriter(new FileWriter(file))){
+                profiler.writeCsv(writer);
+                gsm.gameLoop.writeCsv(writer);
+            } catch (IOException e){
+                e.printStackTrace();
+            }
+        }
+        if (recording != null){
+            recording.finish(model);
+            String file = "./DragonReplay-" + name + ".replay";
+            try (OutputStream out = new BufferedOutputStream(new FileOutputStream(file))){
+                recording.write(out);
+            } catch (IOException e){
+                e.printStackTrace();
+            }
+        }
+    }
+    
+    /**
+     * Draws each entity where its body is, and removes the entities whose
+     * bodies have been removed from the world.
+     * 
+     * @param iterator
+     *          Iterator over the children of an entity group
+     * @param alpha
+     *          How far between the last two ticks to draw, from 0 to 1
+     */
+    private void syncEntities(Iterator<Node> iterator, double alpha){
+        while (iterator.hasNext()){
+            Node n = iterator.next();
+            if (n instanceof Entity){
+                Entity entity = (Entity) n;
+                if (entity.getBody().isRemoved()){
+                    iterator.remove();
+                } else {
+                    entity.sync(alpha);
+                }
+            }
         }
     }
     
+    @Override
+    public void playSound(Sound sound){
+        SoundEffect.valueOf(sound.name()).play();
+    }
+    
+    @Override
+    public void bodySpawned(Body body){
+        if (body instanceof FireballBody){
+            entities.getChildren().add(new Fireball((FireballBody) body, this));
+        } else if (body instanceof SnailBody){
+            //Its chunk of the map was just activated
+            enemies.getChildren().add(new SnailEnemy((SnailBody) body, this));
+        }
+    }
+    
+    @Override
+    public void levelWon(){
+        win();
+    }
+    
+    @Override
+    public void playerDied(){
+        reset();
+    }
+    
     /**
-     * Pauses and unpauses the game by halting and releasing
-     * the game thread lock monitor.
+     * Pauses and unpauses the game by stopping and restarting
+     * the game loop.
      */
     public void pauseGame() {
         if (running) {
             togglePauseMenu();
             running = false;
+            gsm.gameLoop.pause();
         } else {
-            synchronized (threadLockMonitor) {
-                togglePauseMenu();
-                running = true;
-                threadLockMonitor.notifyAll();
-            }
+            togglePauseMenu();
+            running = true;
+            //Does nothing if the level has already been won
+            gsm.gameLoop.resume();
         }
     }
     
@@ -217,7 +410,8 @@ abstract public class GameState extends Pane{
      * Resets the current level.
      */
     public void reset(){
-        gameThread.stop(); //Necessary to prevent lagging
+        gsm.gameLoop.beginRestart();
+        gsm.gameLoop.stop(); //Don't run any more ticks of this level
         gsm.changeState(gsm.getCurrentState());
     }
     
@@ -232,7 +426,7 @@ abstract public class GameState extends Pane{
      * Shows a win message and changes to next level.
      */
     public void win(){
-        GameState.gameThread.stop();
+        gsm.gameLoop.stop();
         
         Text winMessage = new Text("Completed " + gsm.getCurrentState() + "!"
                 + "\nPress Shift to Continue");
@@ -255,170 +449,123 @@ abstract public class GameState extends Pane{
     }
     
     /**
-     * Moves the image matrix (map) in the opposite direction
-     * that the player is moving. Also, moves the enemies along with
-     * the map so that the whole world moves for the player.
-     * 
-     * @param direction
-     *          "Left" or "Right" as specified by Player class
-     * @param moveSpeed 
-     *          How fast the map should move as specified by Player class
+     * Builds the level's simulation from mapChunks, or the mapTiles matrix
+     * of int values, then the tile layer that draws the map and an entity
+     * for each body. Player and enemy tiles are used to place respective
+     * bodies on the map; enemies that spawn later get their entity from
+     * bodySpawned().
      */
-    public void moveMap(String direction, int moveSpeed){
-        switch(direction){
-            case "Left":
-                //Do nothing; moveSpeed from Player is already positive
-                break;
-            case "Right":
-                moveSpeed *= -1;
-                break;
+    public final void loadMap(){
+        //Place tiles with the bottom-left picture in the
+        //bottom-left of the screen
+        if (assets != null){
+            model = assets.getWorld();
+        } else if (mapChunks != null){
+            model = new World(mapChunks, numDecorationTiles, getWidth(), getHeight(), packEnemies);
+        } else {
+            model = new World(mapTiles, numDecorationTiles, getWidth(), getHeight(), packEnemies);
         }
-        
-        mapX += moveSpeed;
-        
-        for (Node n : map.getChildren()){
-            ImageView tile = (ImageView) n;
-            tile.setX(tile.getX() + moveSpeed);
+        model.setListener(this);
+        if (parallelEnemies){
+            model.setEnemyUpdater(new ParallelEnemyUpdater(ForkJoinPool.commonPool()));
         }
-        
-        for (Node m : enemies.getChildren()){
-            ImageView enemy = (ImageView) m;
-            enemy.setX(enemy.getX() + moveSpeed);
+        if (recordInput && mapResource != null){
+            recording = new InputRecording(mapResource, 0,
+                    getWidth(), getHeight(), numDecorationTiles);
+            model.setRecording(recording);
         }
-    }
-    
-    /**
-     * Converts the mapTiles matrix of int values to a
-     * matrix of images (map). Player and enemy tiles are used to place
-     * respective entities on the map, and then a blank tile is put on
-     * the map in their location.
-     */
-    public final void loadMap(){
-        mapTileNumbers = new ArrayList();
-        int tileRow;
-        int tileCol;
-        int tile;
-        //The map should start with the bottom-left corner in the screen,
-        //so the map is initiated with the lowest row first, and the rest later.
-        for (int row = mapTiles.length - 1; row >= 0; row--){
-            for (int col = 0; col < mapTiles[row].length; col++){
-                //Pull tile number from the map matrix
-                tile = mapTiles[row][col];
-                //If the tile number is in the array of enemy tiles, then
-                //it represents an enemy location. Send the level the
-                //corresponging location for the enemy.
-                if (ENEMY_TILES.contains(tile)){
-                    switch(tile){
-                        case 26: //Snail Enemy
-                            double snailStartX = GameState.MAP_TILE_SIZE*col;
-                            double snailStartY = GameState.MAP_TILE_SIZE*(row-1);
-                            SnailEnemy snail = new SnailEnemy(snailStartX, snailStartY, this);
-                            enemies.getChildren().add(snail);
-                            break;
-                    }
-                    //Make the map be filled with a blank tile in place of
-                    //the enemy tile
-                    tile = 0;
-                }
-                
-                //If the tile is the player, set the start location
-                if (tile == PLAYER_TILE) {
-                    double playerStartX = GameState.MAP_TILE_SIZE * col;
-                    double playerStartY = GameState.MAP_TILE_SIZE * (row - 1);
-                    player = new Player(this, playerStartX, playerStartY);
-                    tile = 0;
-                }
-                
-                //Convert the single integer into a row/column location
-                tileRow = (int) tile / numTileColumns;
-                tileCol = tile % numTileColumns;
-                
-                //Get the correct tile image
-                Image selectedTile = tileSet[tileRow][tileCol];
-                //Put it in the map group with the right location
-                ImageView image = new ImageView(selectedTile);
-                image.setFitHeight(MAP_TILE_SIZE);
-                image.setFitWidth(MAP_TILE_SIZE);
-                
-                //Place tiles with the bottom-left picture in the
-                //bottom-left of the screen
-                int y = (mapTiles.length - row)*MAP_TILE_SIZE;
-                image.setY(getHeight() - y);
-                image.setX(col*MAP_TILE_SIZE);
-                
-                //If it's the top-left image, set mapX and mapY
-                if (row == 0 && col == 0){
-                    mapX = image.getX();
-                    mapY = image.getY();
+        mapY = model.getMapY();
+        mapWidth = model.getMapWidth();
+        camera = new Camera(worldGroup, model);
+        blankTile = new SpriteFrame(tileSet.getSheet(), tileSet.getViewport(0));
+        
+        if (model.getEnemyGroup() instanceof SnailStore){
+            snailLayer = new SnailLayer((SnailStore) model.getEnemyGroup(), this);
+            enemies.getChildren().add(snailLayer);
+        } else {
+            for (Body body : ((BodyEnemyGroup) model.getEnemyGroup()).getBodies()){
+                if (body instanceof SnailBody){
+                    enemies.getChildren().add(new SnailEnemy((SnailBody) body, this));
                 }
-                
-                mapTileNumbers.add(tile);
-                map.getChildren().add(image);
             }
         }
-        blankTile = tileSet[0][0];
+        player = new Player(model.getPlayer(), this);
+        
+        map = assets != null ? assets.getTileLayer() : createTileLayer(model, tileSet, w);
+        map.update(camera.getX());
         
         hud = new HUD(this);
+        profilerOverlay = new ProfilerOverlay();
+        if (profileTicks){
+            toggleProfiler();
+        }
         
         //Add enemies and player last
         entities.getChildren().addAll(enemies, player);
-        this.getChildren().addAll(map, hud, entities);
+        //The HUD doesn't move with the camera
+        worldGroup.getChildren().addAll(map, entities);
+        this.getChildren().addAll(worldGroup, hud, profilerOverlay);
     }//End loadMap()
     
     /**
-     * Loads the .map file (holding int matrix) associated with the given level.
+     * Makes the layer that draws a level's tiles. The layer isn't shown
+     * yet, so this can be called on any thread.
+     * 
+     * @param model
+     *          The level's World
+     * @param tileSet
+     *          The level's tile set
+     * @param viewportWidth
+     *          Width of the screen
+     * @return
+     *          The tile layer chosen by bakeStaticTiles
+     */
+    static TileLayer createTileLayer(World model, TileSet tileSet, double viewportWidth){
+        if (bakeStaticTiles) {
+            return new BakedTileLayer(model.getCollisionLayer(), tileSet, MAP_TILE_SIZE,
+                    model.getMapY(), viewportWidth);
+        } else {
+            //Only the tiles on screen get ImageViews
+            return new VirtualTileLayer(model.getCollisionLayer(), tileSet, MAP_TILE_SIZE,
+                    model.getMapY(), viewportWidth);
+        }
+    }
+    
+    /**
+     * Gets the game's tile set. It is only read from disk and decoded
+     * the first time it's used. Can be called on any thread.
+     * 
+     * @return
+     *          The shared tile set
+     */
+    static TileSet loadTileSet(){
+        return TileSet.get(TILE_SET, NUMTILEROWS);
+    }
+    
+    /**
+     * Loads the map file (holding int matrix) associated with the given level.
      * Map file must be loaded as input stream.
      * 
-     * @param in The input stream of the .map file describing
-     *           which tile goes where.
+     * @param in The input stream of the text .map or binary .bmap file
+     *           describing which tile goes where.
      */
     public final void loadMapSheet(InputStream in){
         try{
-            InputStreamReader isr = new InputStreamReader(in);
-            BufferedReader reader = new BufferedReader(isr);
-            
-            //Map files intentionally stored with row length in the first line
-            //and column length in the second line.
-            //Length = number of tiles
-            int mapHeight = Integer.parseInt(reader.readLine());
-            int mapWidth = Integer.parseInt(reader.readLine());
-            mapTiles = new int[mapHeight][mapWidth];
-            for (int row = 0; row < mapHeight; row++){
-                String numberLine = reader.readLine();
-                String[] nums = numberLine.split("\\s+");
-                for (int col = 0; col < mapWidth; col++){
-                    int tile = Integer.parseInt(nums[col]);
-                    mapTiles[row][col] = tile;
-                }
-            }
-            
-            reader.close();
-            isr.close();
+            mapTiles = MapLoader.readMap(in);
         } catch(Exception e){
             e.printStackTrace();
         }
     }
     
     /**
-     * Initializes the set of tile images by making the matrix index
-     * correspond to a given tile image.
+     * Gets the level's tile set. It is only read from disk and decoded
+     * the first time any level uses it.
      */
     public final void loadTiles(){
         try{
-            Image image =
-                    new Image(this.getClass().getResourceAsStream("/levelresources/TileSet.png"));
-            BufferedImage tileImage = SwingFXUtils.fromFXImage(image, null);
-            tileSize = Math.round(tileImage.getHeight()/NUMTILEROWS);
-            numTileColumns = Math.round(tileImage.getWidth()/tileSize);
-            tileSet = new Image[NUMTILEROWS][numTileColumns];
-            for (int row = 0; row < NUMTILEROWS; row++){
-                for (int col = 0; col < numTileColumns; col++){
-                    BufferedImage temp;
-                    temp = tileImage.getSubimage(col*tileSize, row*tileSize,
-                            tileSize, tileSize);
-                    tileSet[row][col] = SwingFXUtils.toFXImage(temp, null);
-                }
-            }
+            tileSet = loadTileSet();
+            tileSize = tileSet.getTileSize();
+            numTileColumns = tileSet.getColumns();
         } catch(Exception e){
             e.printStackTrace();
         }
@@ -11,6 +11,7 @@ import javafx.stage.Stage;
 import levels.Level1;
 import levels.Level2;
 import levels.MusicPlayer;
+import levels.MusicService;
 
 public final class GameStateManager{
     private StateType currentState;
@@ -18,8 +19,55 @@ public final class GameStateManager{
     private final Stage stage;
     public double width;
     public double height;
+    public final GameLoop gameLoop = new GameLoop(); //Shared by every level
     
-    public enum StateType {MENU, LOAD, LEVEL1, LEVEL2, FINISHED;}
+    //Loads the levels the player could go to next in the background
+    public final LevelPrefetcher prefetcher = new LevelPrefetcher();
+    
+    //Opens songs when they're first needed and crossfades between them
+    public final MusicService music = new MusicService();
+    
+    public enum StateType {
+        MENU,
+        LOAD,
+        LEVEL1("/levelresources/Level1.map", "/levelresources/Level1background.png",
+                MusicPlayer.outdoorSong),
+        LEVEL2("/levelresources/Level2.map", "/levelresources/Level1background.png",
+                MusicPlayer.outdoorSong),
+        FINISHED(MusicPlayer.happySong);
+        
+        public final String mapResource; //null if the state isn't a level
+        public final String backgroundResource;
+        public final MusicPlayer song; //null if the state is silent
+        
+        private StateType(){
+            this((MusicPlayer) null);
+        }
+        
+        private StateType(MusicPlayer song){
+            this(null, null, song);
+        }
+        
+        private StateType(String mapResource, String backgroundResource,
+                MusicPlayer song){
+            this.mapResource = mapResource;
+            this.backgroundResource = backgroundResource;
+            this.song = song;
+        }
+        
+        public boolean isLevel(){
+            return mapResource != null;
+        }
+        
+        /**
+         * @return
+         *          The state after this one, or null if this is the last
+         */
+        public StateType next(){
+            StateType[] states = values();
+            return ordinal() + 1 < states.length ? states[ordinal() + 1] : null;
+        }
+    }
     
     public GameStateManager(Stage stage){
         this.stage = stage;
@@ -37,10 +85,15 @@ public final class GameStateManager{
     public void changeState(StateType state){
         width = stage.getWidth();
         height = stage.getHeight();
+        //Only the new state's level (if any) should be running
+        gameLoop.stop();
+        if (currentLevel != null){
+            currentLevel.exit();
+        }
         currentState = state;
         currentLevel = null;
-        //Cancel all music
-        MusicPlayer.stopAllSongs();
+        //Crossfade to the new state's song; a restarted level keeps its song going
+        music.play(currentState.song);
         switch(currentState){
             case MENU:
                 currentLevel = new MenuScreen(this);
@@ -66,7 +119,44 @@ public final class GameStateManager{
         currentLevel.setFocusTraversable(true);
         currentLevel.requestFocus();
         saveGame();
-        System.gc(); //Erase data from previous game states (levels)
+        prefetchFrom(currentState);
+    }
+    
+    /**
+     * Starts loading the levels that can be reached from a state, so
+     * that changing to them only needs a scene swap. From a level, that's
+     * the level itself (for a restart) and the next one. From the menus,
+     * it's the furthest level reached.
+     * 
+     * @param state
+     *          The state that was just changed to
+     */
+    private void prefetchFrom(StateType state){
+        if (state.isLevel()){
+            prefetch(state);
+            StateType next = state.next();
+            if (next != null && next.isLevel()){
+                prefetch(next);
+            }
+        } else if (state == StateType.MENU || state == StateType.LOAD){
+            int level = loadSave();
+            if (level > 0){
+                prefetch(StateType.valueOf("LEVEL" + level));
+            }
+        }
+    }
+    
+    /**
+     * Starts loading a level in the background, unless it already is.
+     * 
+     * @param level
+     *          A level state
+     * @return
+     *          The task loading it, whose progress can be shown
+     */
+    public LevelPrefetcher.Prefetch prefetch(StateType level){
+        music.prefetch(level.song);
+        return prefetcher.prefetch(level, width, height);
     }
     
     /**
@@ -74,15 +164,7 @@ public final class GameStateManager{
      * Used only for changing to the next level while playing.
      */
     public void changeState(){
-        StateType[] states = StateType.values();
-        int i = 0;
-        //Find the current state
-        while (states[i] != currentState){
-            i++;
-        }
-        //Change it to the next state in the states array
-        i++;
-        changeState(states[i]);
+        changeState(currentState.next());
     }
     
     /**
@@ -146,6 +228,19 @@ public final class GameStateManager{
         }
     }
     
+    /**
+     * Stops the game loop for good and lets the current state clean up.
+     * Used when the game is closed.
+     */
+    public void shutdown(){
+        gameLoop.shutdown();
+        prefetcher.shutdown();
+        music.shutdown();
+        if (currentLevel != null){
+            currentLevel.exit();
+        }
+    }
+    
     public StateType getCurrentState(){
         return currentState;
     }
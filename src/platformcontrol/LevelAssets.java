@@ -0,0 +1,52 @@
+package platformcontrol;
+
+import javafx.scene.image.Image;
+import simulation.World;
+
+/**
+ * Everything a level needs that can be made before the level is shown:
+ * its World, its tile layer and its background. Made by LevelPrefetcher
+ * on a background thread; a level that finds its assets ready only has
+ * to make the views of its characters.
+ *
+ * A set of assets can only be used by one level, since the level's World
+ * changes as it is played.
+ *
+ * @author dPow
+ */
+public final class LevelAssets {
+    private final String mapResource;
+    private final TileSet tileSet;
+    private final World world;
+    private final TileLayer tileLayer;
+    private final Image background;
+
+    LevelAssets(String mapResource, TileSet tileSet, World world, TileLayer tileLayer,
+            Image background) {
+        this.mapResource = mapResource;
+        this.tileSet = tileSet;
+        this.world = world;
+        this.tileLayer = tileLayer;
+        this.background = background;
+    }
+
+    public String getMapResource() {
+        return mapResource;
+    }
+
+    public TileSet getTileSet() {
+        return tileSet;
+    }
+
+    public World getWorld() {
+        return world;
+    }
+
+    public TileLayer getTileLayer() {
+        return tileLayer;
+    }
+
+    public Image getBackground() {
+        return background;
+    }
+}
@@ -0,0 +1,160 @@
+package platformcontrol;
+
+import characters.SpriteManager;
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import javafx.concurrent.Task;
+import javafx.concurrent.Worker;
+import javafx.scene.image.Image;
+import platformcontrol.GameStateManager.StateType;
+import simulation.ChunkSource;
+import simulation.MapLoader;
+import simulation.World;
+
+/**
+ * Loads levels on a background thread before they are needed: the map,
+ * tile set, sprites and background, and then the level's World and tile
+ * layer. A level whose assets are ready when it starts doesn't read or
+ * decode anything, so changing to it is almost only a scene swap.
+ *
+ * Levels are loaded one at a time, in the order they were asked for. The
+ * methods of this class must be called on the JavaFX thread.
+ *
+ * @author dPow
+ */
+public class LevelPrefetcher {
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "Level prefetch");
+        thread.setDaemon(true); //Don't keep the game open
+        return thread;
+    });
+    private final Map<StateType, Prefetch> prefetches = new EnumMap<>(StateType.class);
+
+    /**
+     * Loading of one level. Its progress goes from 0 to 1 as each step
+     * finishes, and can be shown while waiting for it.
+     */
+    public static final class Prefetch extends Task<LevelAssets> {
+        private static final int STEPS = 6;
+        private final StateType level;
+        private final double width;
+        private final double height;
+
+        private Prefetch(StateType level, double width, double height) {
+            this.level = level;
+            this.width = width;
+            this.height = height;
+        }
+
+        @Override
+        protected LevelAssets call() throws IOException {
+            updateProgress(0, STEPS);
+            //Only opened; the World reads the chunks it needs
+            ChunkSource map = MapLoader.openChunks(level.mapResource);
+            updateProgress(1, STEPS);
+
+            TileSet tileSet = GameState.loadTileSet();
+            updateProgress(2, STEPS);
+
+            //Decoded once and kept by SpriteManager
+            SpriteManager.getPlayerSpritesRight();
+            SpriteManager.getPlayerSpritesLeft();
+            SpriteManager.getDeathSprites();
+            SpriteManager.getFireballSprites();
+            SpriteManager.getSnailSprites();
+            updateProgress(3, STEPS);
+
+            Image background = new Image(level.backgroundResource, width, height,
+                    false, true);
+            updateProgress(4, STEPS);
+
+            //Same size as GameState gives its World
+            World world = new World(map, tileSet.getColumns(), width,
+                    GameState.getLevelHeight(height), GameState.packEnemies);
+            updateProgress(5, STEPS);
+
+            TileLayer tileLayer = GameState.createTileLayer(world, tileSet, width);
+            updateProgress(6, STEPS);
+            return new LevelAssets(level.mapResource, tileSet, world, tileLayer, background);
+        }
+
+        public StateType getLevel() {
+            return level;
+        }
+
+        private boolean isFor(double width, double height) {
+            return this.width == width && this.height == height;
+        }
+    }
+
+    /**
+     * Starts loading a level unless it's already loading or loaded.
+     *
+     * @param level
+     *          A level state
+     * @param width
+     *          Width of the window
+     * @param height
+     *          Height of the window
+     * @return
+     *          The level's loading
+     */
+    public Prefetch prefetch(StateType level, double width, double height) {
+        Prefetch prefetch = prefetches.get(level);
+        if (prefetch == null || !prefetch.isFor(width, height) ||
+                prefetch.getState() == Worker.State.FAILED ||
+                prefetch.getState() == Worker.State.CANCELLED) {
+            if (prefetch != null) {
+                prefetch.cancel();
+            }
+            prefetch = new Prefetch(level, width, height);
+            prefetch.setOnFailed(e -> e.getSource().getException().printStackTrace());
+            prefetches.put(level, prefetch);
+            executor.execute(prefetch);
+        }
+        return prefetch;
+    }
+
+    /**
+     * Takes a level's assets if they have finished loading. They are
+     * given out once; the level has to be prefetched again for the next
+     * time it's started.
+     *
+     * @param mapResource
+     *          Resource path of the level's .map file
+     * @param width
+     *          Width of the level
+     * @param height
+     *          Height of the level
+     * @return
+     *          The assets, or null if they aren't ready or were made for a
+     *          different window size
+     */
+    public LevelAssets take(String mapResource, double width, double height) {
+        Iterator<Prefetch> it = prefetches.values().iterator();
+        while (it.hasNext()) {
+            Prefetch prefetch = it.next();
+            if (prefetch.getLevel().mapResource.equals(mapResource)
+                    && prefetch.getState() == Worker.State.SUCCEEDED) {
+                it.remove();
+                LevelAssets assets = prefetch.getValue();
+                World world = assets.getWorld();
+                if (world.getWidth() == width && world.getHeight() == height) {
+                    return assets;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Stops loading. Used when the game is closed.
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
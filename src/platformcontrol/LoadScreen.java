@@ -2,6 +2,7 @@ package platformcontrol;
 
 import java.util.ArrayList;
 import java.util.List;
+import javafx.concurrent.Worker;
 import javafx.scene.image.Image;
 import javafx.scene.input.KeyCode;
 import javafx.scene.input.KeyEvent;
@@ -22,6 +23,7 @@ public class LoadScreen extends GameState {
     private int lastSelection;
     private Image bg;
     private Background background;
+    private boolean loading; //Waiting for the chosen level to finish prefetching
     
     /**
      * Sets background and initializes options and key listener.
@@ -79,6 +81,9 @@ public class LoadScreen extends GameState {
      */
     public void initKeyListener() {
         this.addEventHandler(KeyEvent.KEY_PRESSED, (KeyEvent e) -> {
+            if (loading){
+                return;
+            }
             if (e.getCode() == KeyCode.UP &&
                     currentSelection < this.getChildren().size() - 1){
                 lastSelection = currentSelection;
@@ -110,18 +115,57 @@ public class LoadScreen extends GameState {
         activeMessage.setFill(Color.RED);
         Text inactiveMessage = (Text) this.getChildren().get(lastSelection);
         inactiveMessage.setFill(Color.BLUE);
+        //Start loading the level that will probably be chosen
+        gsm.prefetch(getSelectedLevel());
     }
     
     /**
-     * Activates the selected option.
+     * Gets the level of the selected option.
+     * 
+     * @return
+     *          The level's state
      */
-    private void activate(){
+    private StateType getSelectedLevel(){
         Text message = (Text) this.getChildren().get(currentSelection);
         String text = message.getText();
         String len = "LEVEL ";
         String levelNumber = text.substring(len.length());
         int chosen = Integer.valueOf(levelNumber);
-        gsm.changeState(StateType.valueOf("LEVEL" + String.valueOf(chosen)));
+        return StateType.valueOf("LEVEL" + String.valueOf(chosen));
+    }
+    
+    /**
+     * Activates the selected option. If the level hasn't finished
+     * loading in the background, its progress is shown until it has.
+     */
+    private void activate(){
+        StateType level = getSelectedLevel();
+        LevelPrefetcher.Prefetch prefetch = gsm.prefetch(level);
+        if (prefetch.getState() == Worker.State.SUCCEEDED){
+            gsm.changeState(level);
+            return;
+        }
+        loading = true;
+        Text progress = new Text();
+        progress.setFont(new Font("vernanda", 40));
+        progress.setFill(Color.RED);
+        progress.setY(h / 4);
+        this.getChildren().add(progress);
+        showProgress(progress, prefetch.getProgress());
+        prefetch.progressProperty().addListener((obs, oldValue, newValue) ->
+                showProgress(progress, newValue.doubleValue()));
+        //If it failed, the level is loaded the usual way
+        prefetch.stateProperty().addListener((obs, oldState, state) -> {
+            if (state == Worker.State.SUCCEEDED || state == Worker.State.FAILED ||
+                    state == Worker.State.CANCELLED){
+                gsm.changeState(level);
+            }
+        });
+    }
+    
+    private void showProgress(Text progress, double done){
+        progress.setText("Loading... " + Math.round(Math.max(done, 0)*100) + "%");
+        progress.setX((w - progress.getLayoutBounds().getWidth())/2);
     }
     
 }
\ No newline at end of file
@@ -31,6 +31,7 @@ public class Main extends Application {
     
     @Override
     public void stop(){
+        gsm.shutdown();
         System.exit(0);
     }
     
@@ -0,0 +1,125 @@
+package platformcontrol;
+
+/**
+ * The timing behind GameLoop: how many ticks each frame should run, and
+ * counts of the ticks that ran late or were dropped. Doesn't use JavaFX,
+ * so it can be checked without a window (see TickClockCheck).
+ *
+ * A frame normally runs as many ticks as fit in one nominal frame,
+ * rounded up, since the time left over from the last frame can add one.
+ * At 100 ticks per second and 60 frames per second, frames run one or
+ * two ticks. Any more than that are catch-up ticks that ran late because
+ * the frame was slow, and are counted as coalesced.
+ *
+ * @author dPow
+ */
+final class TickClock {
+    private final long tickLength; //Nanoseconds per tick
+    private final int maxCatchUpTicks; //Most ticks run in a single frame
+    private final int ticksPerFrame; //Most ticks a frame of nominal length can run
+    private long lastFrameTime;
+    private long accumulator; //Nanoseconds not yet simulated
+    private int frameTicks; //Ticks run in the current frame
+    //Stats, only written on the thread running the frames
+    private volatile long ticksRun;
+    private volatile long ticksCoalesced; //Ticks beyond what a nominal frame runs
+    private volatile long ticksDropped; //Ticks skipped because the loop fell too far behind
+
+    /**
+     * @param tickLength
+     *          Nanoseconds per tick
+     * @param maxCatchUpTicks
+     *          Most ticks that can be run in one frame. Any time beyond
+     *          that is dropped.
+     * @param frameLength
+     *          Nanoseconds between frames when nothing is slow
+     */
+    TickClock(long tickLength, int maxCatchUpTicks, long frameLength) {
+        this.tickLength = tickLength;
+        this.maxCatchUpTicks = maxCatchUpTicks;
+        ticksPerFrame = (int) ((frameLength + tickLength - 1) / tickLength);
+        reset();
+    }
+
+    /**
+     * Starts timing from the next frame, which runs one tick right away.
+     */
+    void reset() {
+        lastFrameTime = -1;
+        accumulator = tickLength;
+    }
+
+    /**
+     * Sets the tick counters back to 0.
+     */
+    void resetStats() {
+        ticksRun = 0;
+        ticksCoalesced = 0;
+        ticksDropped = 0;
+    }
+
+    /**
+     * Adds the time since the last frame. A gap longer than
+     * GameLoop.STALL_THRESHOLD is a stall, and only the one tick that
+     * was due is kept.
+     *
+     * @param now
+     *          Time of the frame in nanoseconds
+     * @return
+     *          Number of ticks to run this frame. Each one that runs is
+     *          reported with tickRun().
+     */
+    int beginFrame(long now) {
+        if (lastFrameTime < 0) {
+            lastFrameTime = now;
+        }
+        long elapsed = now - lastFrameTime;
+        lastFrameTime = now;
+        if (elapsed > GameLoop.STALL_THRESHOLD) {
+            //Replaying the stall would just make enemies jump
+            ticksDropped += elapsed / tickLength - 1;
+            elapsed = tickLength;
+        }
+        accumulator += elapsed;
+        frameTicks = 0;
+        return (int) Math.min(accumulator / tickLength, maxCatchUpTicks);
+    }
+
+    /**
+     * Takes one tick's time out of the accumulator.
+     */
+    void tickRun() {
+        accumulator -= tickLength;
+        ticksRun++;
+        if (++frameTicks > ticksPerFrame) {
+            ticksCoalesced++;
+        }
+    }
+
+    /**
+     * Drops whatever time is left that more ticks couldn't be run for.
+     *
+     * @return
+     *          How far between the last two ticks to draw, from 0 to 1
+     */
+    double endFrame() {
+        if (accumulator >= tickLength) {
+            //Too far behind to catch up
+            ticksDropped += accumulator / tickLength;
+            accumulator %= tickLength;
+        }
+        return (double) accumulator / tickLength;
+    }
+
+    long getTicksRun() {
+        return ticksRun;
+    }
+
+    long getTicksCoalesced() {
+        return ticksCoalesced;
+    }
+
+    long getTicksDropped() {
+        return ticksDropped;
+    }
+}
@@ -0,0 +1,73 @@
+package platformcontrol;
+
+/**
+ * Checks that the game loop's tick counters only report stalls: frames
+ * at a steady 60 Hz must report no coalesced or dropped ticks, and a
+ * single slow frame must report its catch-up ticks. Runs the TickClock
+ * on made-up frame times, so it doesn't need a window.
+ *
+ * Exits with status 1 if a check fails. Run by `./gradlew check`.
+ *
+ * @author dPow
+ */
+public class TickClockCheck {
+    private static final long FRAME_LENGTH = 1_000_000_000L / GameLoop.NOMINAL_FRAME_RATE;
+    private static final long TICK_LENGTH = 1_000_000_000L / GameLoop.DEFAULT_TICK_RATE;
+    private static boolean failed;
+
+    private TickClockCheck() {
+    }
+
+    public static void main(String[] args) {
+        TickClock steady = run(1000, -1);
+        expect("60 Hz coalesced", steady.getTicksCoalesced(), 0);
+        expect("60 Hz dropped", steady.getTicksDropped(), 0);
+        //999 frames of 1/60 s after the first, plus the first frame's tick
+        expect("60 Hz run", steady.getTicksRun(), 1 + 999*FRAME_LENGTH/TICK_LENGTH);
+
+        //A 100 ms frame is due 10 ticks: it runs the catch-up limit, of
+        //which the ones past what a 60 Hz frame runs are coalesced
+        int perFrame = (int) ((FRAME_LENGTH + TICK_LENGTH - 1) / TICK_LENGTH);
+        TickClock slow = run(1000, 500);
+        expect("slow frame coalesced", slow.getTicksCoalesced(),
+                GameLoop.DEFAULT_MAX_CATCH_UP_TICKS - perFrame);
+        expect("slow frame dropped", slow.getTicksDropped(),
+                100_000_000L/TICK_LENGTH - GameLoop.DEFAULT_MAX_CATCH_UP_TICKS);
+
+        if (failed) {
+            System.exit(1);
+        }
+        System.out.println("Tick counters OK");
+    }
+
+    /**
+     * Runs frames at 60 Hz, like GameLoop does.
+     *
+     * @param frames
+     *          Number of frames
+     * @param slowFrame
+     *          Frame that comes 100 ms after the one before it instead,
+     *          or -1 for none
+     */
+    private static TickClock run(int frames, int slowFrame) {
+        TickClock clock = new TickClock(TICK_LENGTH, GameLoop.DEFAULT_MAX_CATCH_UP_TICKS,
+                FRAME_LENGTH);
+        long now = 0;
+        for (int frame = 0; frame < frames; frame++) {
+            now += frame == slowFrame ? 100_000_000L : FRAME_LENGTH;
+            int ticks = clock.beginFrame(now);
+            for (int i = 0; i < ticks; i++) {
+                clock.tickRun();
+            }
+            clock.endFrame();
+        }
+        return clock;
+    }
+
+    private static void expect(String what, long actual, long expected) {
+        if (actual != expected) {
+            System.err.println(what + ": expected " + expected + " but was " + actual);
+            failed = true;
+        }
+    }
+}
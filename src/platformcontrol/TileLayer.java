@@ -0,0 +1,22 @@
+package platformcontrol;
+
+import javafx.scene.Group;
+
+/**
+ * Draws a level's map tiles. Tiles never change after the map is loaded,
+ * so a layer only needs to know where the camera is in order to decide
+ * what should be on screen. Collisions use the CollisionLayer, not the
+ * nodes in a tile layer.
+ *
+ * @author dPow
+ */
+abstract public class TileLayer extends Group {
+
+    /**
+     * Updates which part of the map is drawn after the camera moves.
+     *
+     * @param cameraX
+     *          Screen X-coordinate of the world's left edge
+     */
+    abstract public void update(double cameraX);
+}
@@ -0,0 +1,124 @@
+package platformcontrol;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.ConcurrentHashMap;
+import javafx.geometry.Rectangle2D;
+import javafx.scene.image.Image;
+
+/**
+ * A decoded tile set image. Each tile set file is decoded once and then
+ * shared by every level that uses it, so loading or restarting a level
+ * doesn't read or decode the file again.
+ *
+ * Tiles are numbered left to right, then top to bottom. They are drawn
+ * with an ImageView of the whole sheet and the tile's viewport, which
+ * doesn't copy any pixels.
+ *
+ * @author dPow
+ */
+public final class TileSet {
+    //Decoded tile sets by resource path
+    private static final ConcurrentHashMap<String, TileSet> TILE_SETS =
+            new ConcurrentHashMap<>();
+
+    private final Image sheet;
+    private final int tileSize; //Width and height of a tile in the sheet
+    private final int rows;
+    private final int columns;
+    private final Rectangle2D[] viewports;
+
+    private TileSet(Image sheet, int rows) {
+        this.sheet = sheet;
+        this.rows = rows;
+        tileSize = (int) Math.round(sheet.getHeight()/rows);
+        columns = (int) Math.round(sheet.getWidth()/tileSize);
+        viewports = new Rectangle2D[rows*columns];
+        for (int tile = 0; tile < viewports.length; tile++) {
+            viewports[tile] = new Rectangle2D(getSourceX(tile), getSourceY(tile),
+                    tileSize, tileSize);
+        }
+    }
+
+    /**
+     * Gets a tile set, decoding it if this is the first time it's used.
+     *
+     * @param resource
+     *          Resource path of the tile set image
+     * @param rows
+     *          Number of rows of tiles in the image
+     * @return
+     *          The shared tile set
+     * @throws IllegalArgumentException
+     *          If the image can't be found or decoded
+     */
+    public static TileSet get(String resource, int rows) {
+        return TILE_SETS.computeIfAbsent(resource, r -> load(r, rows));
+    }
+
+    private static TileSet load(String resource, int rows) {
+        try (InputStream in = TileSet.class.getResourceAsStream(resource)) {
+            if (in == null) {
+                throw new IllegalArgumentException("No tile set " + resource);
+            }
+            Image sheet = new Image(in);
+            if (sheet.isError()) {
+                throw new IllegalArgumentException("Can't decode tile set " + resource,
+                        sheet.getException());
+            }
+            return new TileSet(sheet, rows);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Can't read tile set " + resource, e);
+        }
+    }
+
+    /**
+     * Forgets every decoded tile set, so the next use of each one decodes
+     * it again. Levels that already have a tile set keep it.
+     * Used by the benchmarks to measure decoding.
+     */
+    public static void clearCache() {
+        TILE_SETS.clear();
+    }
+
+    /**
+     * @return
+     *          The whole tile set image
+     */
+    public Image getSheet() {
+        return sheet;
+    }
+
+    /**
+     * Gets the part of the sheet that holds a tile, for
+     * ImageView.setViewport().
+     *
+     * @param tile
+     *          Tile number
+     * @return
+     *          The tile's rectangle in the sheet
+     */
+    public Rectangle2D getViewport(int tile) {
+        return viewports[tile];
+    }
+
+    public int getSourceX(int tile) {
+        return (tile % columns)*tileSize;
+    }
+
+    public int getSourceY(int tile) {
+        return (tile / columns)*tileSize;
+    }
+
+    public int getTileSize() {
+        return tileSize;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+}
@@ -0,0 +1,113 @@
+package platformcontrol;
+
+import javafx.scene.image.ImageView;
+import simulation.CollisionLayer;
+
+/**
+ * Draws the map's tiles using a fixed pool of ImageViews that only covers
+ * the columns on screen (plus a small margin on each side). As the camera
+ * moves, columns that scroll out of view are reused for the columns
+ * scrolling in, so the number of nodes doesn't depend on the map's width.
+ *
+ * Every ImageView shows the whole tile set image through the viewport of
+ * its tile, so no tile images are made. Smoothing is off so that scaling a
+ * tile up doesn't blend in the edges of its neighbours in the sheet.
+ *
+ * Blank tiles are hidden rather than drawn. Tiles are read from the
+ * World's CollisionLayer, which has loaded a column's chunk before the
+ * column comes on screen.
+ *
+ * @author dPow
+ */
+public class VirtualTileLayer extends TileLayer {
+    private static final int MARGIN_COLUMNS = 2; //Extra columns kept on each side of the screen
+
+    private final CollisionLayer tiles;
+    private final TileSet tileSet;
+    private final int tileSize;
+    private final ImageView[][] pool; //ImageView[slot][row]
+    private final int[] slotColumns; //Which map column each slot is showing, -1 if none
+
+    /**
+     * Creates enough ImageViews to cover the screen's width.
+     *
+     * @param tiles
+     *          Tile numbers of the map
+     * @param tileSet
+     *          Tile images
+     * @param tileSize
+     *          Width and height of each tile on screen
+     * @param originY
+     *          World Y-coordinate of the top row of the map
+     * @param viewportWidth
+     *          Width of the screen
+     */
+    public VirtualTileLayer(CollisionLayer tiles, TileSet tileSet, int tileSize,
+            double originY, double viewportWidth) {
+        this.tiles = tiles;
+        this.tileSet = tileSet;
+        this.tileSize = tileSize;
+
+        int visibleColumns = (int) Math.ceil(viewportWidth / tileSize) + 1;
+        int slots = Math.min(visibleColumns + 2*MARGIN_COLUMNS, tiles.getColumns());
+        pool = new ImageView[slots][tiles.getRows()];
+        slotColumns = new int[slots];
+        for (int slot = 0; slot < slots; slot++) {
+            slotColumns[slot] = -1;
+            for (int row = 0; row < tiles.getRows(); row++) {
+                ImageView image = new ImageView(tileSet.getSheet());
+                image.setSmooth(false);
+                image.setFitWidth(tileSize);
+                image.setFitHeight(tileSize);
+                image.setY(originY + row*tileSize);
+                image.setVisible(false);
+                pool[slot][row] = image;
+                getChildren().add(image);
+            }
+        }
+    }
+
+    /**
+     * Makes sure the columns around the camera are showing the right tiles.
+     * Only columns that just came into range are changed.
+     *
+     * @param cameraX
+     *          Screen X-coordinate of the world's left edge
+     */
+    @Override
+    public void update(double cameraX) {
+        int slots = slotColumns.length;
+        int firstColumn = (int) Math.floor(-cameraX / tileSize) - MARGIN_COLUMNS;
+        //Keep the pool inside the map so that no slot is wasted past its edges
+        firstColumn = Math.max(0, Math.min(firstColumn, tiles.getColumns() - slots));
+        for (int col = firstColumn; col < firstColumn + slots; col++) {
+            int slot = col % slots;
+            if (slotColumns[slot] != col) {
+                showColumn(slot, col);
+            }
+        }
+    }
+
+    /**
+     * Points one slot's ImageViews at the tiles of a map column.
+     *
+     * @param slot
+     *          Index of the pooled column
+     * @param col
+     *          Map column to show
+     */
+    private void showColumn(int slot, int col) {
+        slotColumns[slot] = col;
+        for (int row = 0; row < tiles.getRows(); row++) {
+            ImageView image = pool[slot][row];
+            int tile = tiles.getTile(row, col);
+            if (tile == 0) {
+                image.setVisible(false);
+            } else {
+                image.setViewport(tileSet.getViewport(tile));
+                image.setX(col*tileSize);
+                image.setVisible(true);
+            }
+        }
+    }
+}
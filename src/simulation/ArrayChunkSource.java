@@ -0,0 +1,39 @@
+package simulation;
+
+/**
+ * A map that is already in memory as an int[row][col] of tile numbers,
+ * e.g. one read from a text .map file.
+ *
+ * @author dPow
+ */
+final class ArrayChunkSource implements ChunkSource {
+    private final int[][] mapTiles;
+
+    /**
+     * @param mapTiles
+     *          int[row][col] of tile numbers. It isn't copied or changed.
+     */
+    ArrayChunkSource(int[][] mapTiles) {
+        if (mapTiles.length == 0 || mapTiles[0].length == 0) {
+            throw new IllegalArgumentException("Map has no tiles");
+        }
+        this.mapTiles = mapTiles;
+    }
+
+    @Override
+    public int getRows() {
+        return mapTiles.length;
+    }
+
+    @Override
+    public int getColumns() {
+        return mapTiles[0].length;
+    }
+
+    @Override
+    public void readColumns(int firstColumn, int count, int[][] into) {
+        for (int row = 0; row < mapTiles.length; row++) {
+            System.arraycopy(mapTiles[row], firstColumn, into[row], 0, count);
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package simulation;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A map in the binary .bmap format (see MapLoader), read straight from its
+ * buffer. Nothing is copied out of the buffer until its columns are asked
+ * for, so a memory-mapped map file takes no heap however wide it is.
+ *
+ * Only the header is checked when the source is made, so opening a map
+ * takes the same time however big it is. Spawns are checked as their
+ * columns are read. Not thread-safe; each World should have its own source.
+ *
+ * @author dPow
+ */
+final class BinaryChunkSource implements ChunkSource {
+    private static final int SPAWN_BYTES = 3*Integer.BYTES;
+
+    private final ByteBuffer buf;
+    private final int rows;
+    private final int columns;
+    private final String tileSetId;
+    private final int spawnTable; //Offset of the spawn table in buf
+    private final int spawns;
+    private final int bytesPerTile;
+    private final int tileArray; //Offset of the tiles in buf
+    private final byte[] rowBytes; //For copying a row of 1-byte tiles
+
+    /**
+     * Reads and checks the header of a binary map.
+     *
+     * @param map
+     *          The map, from its current position. Only its duplicate is
+     *          used, so its position isn't changed.
+     * @throws IOException
+     *          If it isn't a valid binary map of this version
+     */
+    BinaryChunkSource(ByteBuffer map) throws IOException {
+        buf = map.duplicate();
+        try {
+            if (buf.getInt() != MapLoader.MAGIC) {
+                throw new IOException("Not a binary map");
+            }
+            short version = buf.getShort();
+            if (version != MapLoader.VERSION) {
+                throw new IOException("Unsupported map version " + version);
+            }
+            rows = buf.getInt();
+            columns = buf.getInt();
+            if (rows <= 0 || columns <= 0) {
+                throw new IOException("Bad map size " + rows + "x" + columns);
+            }
+            byte[] id = new byte[buf.getShort() & 0xFFFF];
+            buf.get(id);
+            tileSetId = new String(id, StandardCharsets.UTF_8);
+            spawns = buf.getInt();
+            spawnTable = buf.position();
+            if (spawns < 0 || spawns > (buf.limit() - spawnTable)/SPAWN_BYTES) {
+                throw new IOException("Bad spawn count " + spawns);
+            }
+            buf.position(spawnTable + spawns*SPAWN_BYTES);
+            bytesPerTile = buf.get();
+            if (bytesPerTile != 1 && bytesPerTile != 2) {
+                throw new IOException("Bad tile size " + bytesPerTile);
+            }
+            tileArray = buf.position();
+            if ((long) rows*columns*bytesPerTile > buf.limit() - tileArray) {
+                throw new IOException("Corrupt binary map: the tiles are cut off");
+            }
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Corrupt binary map: the header is cut off", e);
+        }
+        rowBytes = bytesPerTile == 1 ? new byte[columns] : null;
+    }
+
+    @Override
+    public int getRows() {
+        return rows;
+    }
+
+    @Override
+    public int getColumns() {
+        return columns;
+    }
+
+    public String getTileSetId() {
+        return tileSetId;
+    }
+
+    /**
+     * Copies a row at a time out of the buffer, then puts back the spawn
+     * tiles of the columns, which are found by a binary search on their
+     * column.
+     *
+     * @throws UncheckedIOException
+     *          If a spawn in the columns is outside the map
+     */
+    @Override
+    public void readColumns(int firstColumn, int count, int[][] into) {
+        for (int row = 0; row < rows; row++) {
+            int[] tiles = into[row];
+            int offset = tileArray + (row*columns + firstColumn)*bytesPerTile;
+            if (bytesPerTile == 1) {
+                buf.position(offset);
+                buf.get(rowBytes, 0, count);
+                for (int col = 0; col < count; col++) {
+                    tiles[col] = rowBytes[col] & 0xFF;
+                }
+            } else {
+                for (int col = 0; col < count; col++) {
+                    tiles[col] = buf.getShort(offset + col*Short.BYTES) & 0xFFFF;
+                }
+            }
+        }
+
+        int lastColumn = firstColumn + count;
+        for (int i = firstSpawn(firstColumn); i < spawns; i++) {
+            int col = getSpawnColumn(i);
+            if (col >= lastColumn) {
+                break;
+            }
+            int row = getSpawnRow(i);
+            if (row < 0 || row >= rows) {
+                throw new UncheckedIOException(new IOException(
+                        "Corrupt binary map: spawn " + i + " is outside the map"));
+            }
+            into[row][col - firstColumn] = getSpawnTile(i);
+        }
+    }
+
+    /**
+     * Finds the first spawn in or after a column.
+     *
+     * @return
+     *          Index of the spawn, or the number of spawns if there is none
+     */
+    private int firstSpawn(int column) {
+        int low = 0;
+        int high = spawns;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (getSpawnColumn(mid) < column) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private int getSpawnRow(int i) {
+        return buf.getInt(spawnTable + i*SPAWN_BYTES);
+    }
+
+    private int getSpawnColumn(int i) {
+        return buf.getInt(spawnTable + i*SPAWN_BYTES + Integer.BYTES);
+    }
+
+    private int getSpawnTile(int i) {
+        return buf.getInt(spawnTable + i*SPAWN_BYTES + 2*Integer.BYTES);
+    }
+}
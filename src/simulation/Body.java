@@ -0,0 +1,684 @@
+package simulation;
+
+import simulation.TickProfiler.Phase;
+
+/**
+ * The game-logic half of a character: position, size, movement flags,
+ * map collisions and which sprite should be showing. Bodies don't use any
+ * JavaFX classes, so the simulation can run without a display; the
+ * ImageView-based classes in the characters package only draw them.
+ *
+ * @author dPow
+ */
+abstract public class Body {
+
+    protected final World world;
+
+    //Location and size
+    protected double x;
+    protected double y;
+    protected double width;
+    protected double height;
+    //Location at the start of the current tick, used to draw between ticks
+    protected double previousX;
+    protected double previousY;
+
+    //Character Properties
+    protected int health;
+    protected int maxHealth;
+    protected int moveSpeed;
+    protected int jumpSpeed;
+    protected int jumpHeight;
+    protected int fireSpeed;
+    protected boolean jumping;
+    protected boolean moving;
+    protected boolean gliding;
+    protected boolean attacking;
+    protected boolean scratching;
+    protected boolean justScratched;
+    protected boolean firing;
+    protected boolean justFired;
+    protected String direction;
+    protected int jumpTime;
+    protected boolean justJumped;
+    protected boolean alive;
+    protected boolean removed; //Set once the death animation is over
+    protected int enemyDamage;
+    protected boolean flinching;
+    protected int flinchCycler;
+    protected boolean justHurt;
+
+    //Collision with map
+    protected boolean onGround;
+    protected boolean topLeft;
+    protected boolean topRight;
+    protected boolean midLeft;
+    protected boolean midRight;
+    protected boolean bottomLeft;
+    protected boolean bottomRight;
+    protected boolean topMiddle;
+    protected boolean bottomMiddle;
+    protected boolean hitLeft;
+    protected boolean hitRight;
+    //Points around the edges of the body that are checked against map tiles
+    protected double probeLeft;
+    protected double probeCenterX;
+    protected double probeRight;
+    protected double probeTop;
+    protected double probeCenterY;
+    protected double probeBottom;
+
+    //currentAction is the action enum that is being done
+    protected int currentAction;
+    //animationCycler is which sprite of the current action to show
+    protected int animationCycler;
+    //when timeToUpdateCycler == UPDATE_TIME, it changes the sprite image
+    protected int timeToUpdateCycler;
+    //when deathCounter == DEATH_TIME, the body is removed
+    protected int deathCounter;
+    //Only lets the death tone play once when the body dies
+    protected boolean playedDeathTone;
+    //Only lets the flinch tone play once when the body flinches
+    protected boolean playedFlinchTone;
+
+    //Where sounds go while the body is updated off the game loop's thread
+    SoundQueue soundQueue;
+    //Spawn marker an enemy came from (see World), -1 for other bodies
+    int spawnMarker = -1;
+
+    //Sprite that should be showing, read by the view
+    protected int spriteMode;
+    protected int spriteAction;
+    protected int spriteFrame;
+    protected String spriteDirection;
+
+    //Animation enums
+    public static final int UPDATE_TIME = 15;
+    public static final int DEATH_TIME = 10;
+    public static final int IDLE = 0;
+    public static final int WALKING = 1;
+    public static final int JUMPING = 2;
+    public static final int FALLING = 3;
+    public static final int GLIDING = 4;
+    public static final int FIRING = 5;
+    public static final int SCRATCHING = 6;
+    public static final int DEATH_FRAMES = 6;
+
+    //Sprite modes
+    public static final int SPRITE_NORMAL = 0; //sprites[spriteAction][spriteFrame]
+    public static final int SPRITE_FLINCH = 1; //The body's flinch image
+    public static final int SPRITE_BLANK = 2; //Nothing (flashing while flinching)
+    public static final int SPRITE_DEATH = 3; //deathSprites[spriteFrame]
+
+    //Squared distance from the corner of a map tile to its center. Any body
+    //point closer than this to a tile's center is touching the tile.
+    protected static final double COLLISION_DISTANCE_SQUARED =
+            2*Math.pow(World.MAP_TILE_SIZE / 2, 2);
+
+    public Body(World world) {
+        this.world = world;
+        alive = true;
+        moving = true; //Default for enemies
+        currentAction = WALKING; //Default for enemies
+        jumpSpeed = 3;
+        jumpHeight = 40; //Pixel jump height = jumpHeight*jumpSpeed
+        playedDeathTone = false;
+        playedFlinchTone = false;
+        animationCycler = timeToUpdateCycler = 0;
+        spriteMode = SPRITE_NORMAL;
+        spriteAction = WALKING;
+    }
+
+    /**
+     * Places the body without it being drawn sliding from its old location.
+     *
+     * @param x
+     *          World X-coordinate
+     * @param y
+     *          World Y-coordinate
+     */
+    protected void setPosition(double x, double y) {
+        this.x = previousX = x;
+        this.y = previousY = y;
+    }
+
+    /**
+     * Updates the character's properties in order to run the game.
+     */
+    public void update() {
+        if (alive) {
+            //The profiler isn't thread-safe, so bodies updated in parallel aren't timed
+            TickProfiler profiler = soundQueue == null ? world.getProfiler() : null;
+            long time = profiler != null ? System.nanoTime() : 0;
+            checkMapCollision();
+            if (profiler != null) {
+                time = profiler.lap(Phase.ENEMY_MAP_COLLISION, time);
+            }
+            move();
+            if (profiler != null) {
+                time = profiler.lap(Phase.ENEMY_MOVE, time);
+            }
+            updateAnimation();
+            if (profiler != null) {
+                profiler.lap(Phase.ENEMY_ANIMATION, time);
+            }
+            checkDeath();
+        } else {
+            die();
+        }
+    }
+
+    /**
+     * Moves the character left or right. This is designed for
+     * enemies, not the player or fireballs.
+     */
+    public void move() {
+        if (moving) {
+            currentAction = WALKING;
+            switch (direction) {
+                case "Left":
+                    if (!hitLeft) {
+                        x -= moveSpeed;
+                        //Reset if the character hit the right wall
+                        if (hitRight) {
+                            hitRight = topRight = midRight = false;
+                        }
+                    } else if (hitLeft) {
+                        direction = "Right";
+                    }
+                    break;
+
+                case "Right":
+                    if (!hitRight) {
+                        x += moveSpeed;
+                        if (hitLeft) {
+                            hitLeft = topLeft = midLeft = false;
+                        }
+                    } else if (hitRight) {
+                        direction = "Left";
+                    }
+                    break;
+            }
+        }
+        else {//if not moving
+            if (!attacking) {
+                currentAction = IDLE;
+            }
+        }
+        jump();
+    }
+
+    /**
+     * Allows the body to jump if they so choose.
+     */
+    public void jump(){
+        //Try to jump
+        if (jumping && jumpTime < jumpHeight){
+            //jumpTime is how long you can jump before falling
+            //Once jumpTime = jumpHeight, you start falling
+            //regardless of if you are trying to jump (jumping = true)
+            if (jumpTime == 0) {
+                //Only play the sound effect at the beginning of a jump
+                playSound(Sound.JUMP);
+            }
+            jumpTime++;
+            onGround = bottomLeft = bottomRight = bottomMiddle = false;
+            y -= jumpSpeed;
+            if (!attacking) {currentAction = JUMPING;}
+        }
+        //If player can't jump, then fall
+        else if (!jumping || jumpTime >= jumpHeight){
+            //Setting jumpTime = jumpHeight prevents jumping
+            //while in the air
+            jumpTime = jumpHeight;
+            //Since player isn't jumping, he is falling.
+            //This is only called if jumping fails.
+            fall();
+        }
+    }
+
+    /**
+     * Causes the body to fall (move towards the ground) after
+     * jumping or walking off the edge.
+     */
+    public void fall() {
+        if (onGround) {
+            if (!justJumped) {
+                //Allows body to jump again
+                //only if the jump-button is released
+                jumpTime = 0;
+            }
+            if (!moving && !attacking) {
+                currentAction = IDLE;
+            }
+        } else if (!onGround) {
+            if (gliding) {
+                y += jumpSpeed / 3;
+                if (!attacking) {
+                    currentAction = GLIDING;
+                }
+            } else {
+                y += jumpSpeed;
+                if (!attacking) {
+                    currentAction = FALLING;
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks to see if the body should be dead or alive.
+     */
+    protected void checkDeath() {
+        //alive added to prevent deathSprite overwrite
+        //If health is exhausted
+        if (health <= 0 && alive) {
+            alive = false;
+            animationCycler = timeToUpdateCycler = 0;
+        } //If body goes off the map
+        else if (y + height >= world.getHeight()) {
+            health = 0;
+        }
+    }
+
+    /**
+     * Runs a simple death-animation and then marks the
+     * body to be removed from the world.
+     */
+    public void die() {
+        //If the body just died, then play sound once at the beginning
+        //of the image cycle
+        if (!playedDeathTone) {
+            playSound(getDeathSound());
+            playedDeathTone = true;
+        }
+
+        //Change the sprite to represent death
+        timeToUpdateCycler++;
+        if (timeToUpdateCycler == UPDATE_TIME) {
+            showSprite(SPRITE_DEATH, 0, animationCycler);
+            animationCycler++;
+            timeToUpdateCycler = 0;
+            if (animationCycler >= DEATH_FRAMES) {
+                animationCycler = 0;
+            }
+            deathCounter++;
+        }
+
+        //Remove the body from the world after the animation plays
+        if (deathCounter == DEATH_TIME) {
+            removed = true;
+            onRemoved();
+        }
+    }
+
+    /**
+     * Called once the death animation has finished.
+     */
+    protected void onRemoved() {
+    }
+
+    /**
+     * Plays a sound, or queues it if the body is being updated in parallel
+     * with other bodies.
+     *
+     * @param sound
+     *          Sound to play, or null for none
+     */
+    protected void playSound(Sound sound) {
+        if (soundQueue != null) {
+            soundQueue.add(sound);
+        } else {
+            world.playSound(sound);
+        }
+    }
+
+    /**
+     * Specifies which death tone should be played for each character.
+     *
+     * @return
+     *          Sound to play, or null for none
+     */
+    protected abstract Sound getDeathSound();
+
+    /**
+     * Specifies which flinch tone should be played for each character.
+     *
+     * @return
+     *          Sound to play, or null for none
+     */
+    protected abstract Sound getFlinchSound();
+
+    /**
+     * Gets how many sprites each action's animation has.
+     *
+     * @return
+     *          Number of frames, indexed by action enum
+     */
+    protected abstract int[] getFrameCounts();
+
+    /**
+     * Updates the current sprite of the body based on the
+     * current action being performed.
+     */
+    public void updateAnimation() {
+        timeToUpdateCycler++;
+        if (timeToUpdateCycler == UPDATE_TIME) {
+            if (!flinching){
+                showSprite(SPRITE_NORMAL, currentAction, animationCycler);
+                animationCycler++;
+                if (animationCycler >= getFrameCounts()[currentAction]) {
+                    animationCycler = 0;
+                }
+            }
+            else{
+                if (!playedFlinchTone) {
+                    playSound(getFlinchSound());
+                    playedFlinchTone = true;
+                }
+                if (flinchCycler == 0 || flinchCycler == 2){
+                    showSprite(SPRITE_FLINCH, 0, 0);
+                }
+                else if (flinchCycler == 1 || flinchCycler == 3){
+                    showSprite(SPRITE_BLANK, 0, 0);
+                }
+                flinchCycler++;
+                if (flinchCycler == 4){
+                    flinchCycler = 0;
+                    flinching = false;
+                    moving = true;
+                    justHurt = false;
+                    playedFlinchTone = false;
+                }
+            }
+            timeToUpdateCycler = 0;
+        }
+    }
+
+    /**
+     * Sets which sprite the view should show.
+     *
+     * @param mode
+     *          One of the SPRITE_* modes
+     * @param action
+     *          Action enum of the sprite
+     * @param frame
+     *          Frame of the action's animation
+     */
+    protected void showSprite(int mode, int action, int frame) {
+        spriteMode = mode;
+        spriteAction = action;
+        spriteFrame = frame;
+        spriteDirection = direction;
+    }
+
+    /**
+     * Checks to see if the first body collides with the second.
+     * Used for checking if a body collides with another body
+     * or fireball.
+     *
+     * @param first
+     *          First body
+     * @param second
+     *          Second body
+     * @return
+     *          True if the bodies collide, else false
+     */
+    public static boolean checkObjectCollision(Body first, Body second) {
+        //If the two bodies collide
+        if ((first.x <= second.x + second.width
+                && first.x + first.width >= second.x)
+                && (first.y <= second.y + second.height
+                && first.y + first.height >= second.y)) {
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Remembers the body's location at the start of a tick.
+     */
+    public void savePosition() {
+        previousX = x;
+        previousY = y;
+    }
+
+    /**
+     * Gets where the body is on screen. x is the body's location
+     * in the world, which doesn't change when the camera scrolls.
+     *
+     * @return
+     *          X-coordinate of the body on screen
+     */
+    public double getScreenX() {
+        return x + world.getCameraX();
+    }
+
+    /**
+     * Uses the world's enemy broad-phase to find the enemies that could be
+     * touching this body. The candidates can be read with getNearbyEnemy(),
+     * and still need to be checked with EnemyGroup.touches().
+     *
+     * @return
+     *          Number of candidate enemies
+     */
+    protected int queryNearbyEnemies() {
+        return world.getEnemyHash().query(x, y, width, height);
+    }
+
+    /**
+     * Gets a candidate found by the last queryNearbyEnemies() call.
+     *
+     * @param i
+     *          Index of the candidate
+     * @return
+     *          The candidate's index in the world's EnemyGroup
+     */
+    protected int getNearbyEnemy(int i) {
+        return world.getEnemyHash().getResult(i);
+    }
+
+    /**
+     * Checks if the body collides with the map, then calls
+     * updateCollisions. This method is useful because it checks to see which
+     * map tiles the body collides with before deciding which side(s) with
+     * which the body collided.
+     */
+    public void checkMapCollision() {
+        TileIndex index = world.getTileIndex();
+        resetCollisions();
+        int lastRow = index.lastRow(y, height);
+        int lastCol = index.lastColumn(x, width);
+        //For each map tile the body is touching
+        for (int row = index.firstRow(y); row <= lastRow; row++) {
+            for (int col = index.firstColumn(x); col <= lastCol; col++) {
+                //If the tile isn't a ghost (decoration) tile
+                if (index.isSolid(row, col)) {
+                    probeTile(index.getTileCenterX(col), index.getTileCenterY(row));
+                }
+            }
+        }
+        updateCollisions();
+    }
+
+    /**
+     * Clears the body's corner collisions and calculates the points
+     * around its edges (corners and middles of each side) that get
+     * compared against map tiles.
+     */
+    protected void resetCollisions() {
+        probeLeft = x;
+        probeRight = x + width;
+        probeCenterX = x + width / 2;
+        probeTop = y;
+        probeBottom = y + height;
+        probeCenterY = y + height / 2;
+
+        //Reset if the corners have collided
+        //onGround needs to be included in order to make player fall after
+        //walking off a ledge
+        topLeft = topRight = bottomLeft = bottomRight
+                = midLeft = midRight = onGround
+                = hitLeft = hitRight
+                = topMiddle = bottomMiddle = false;
+    }
+
+    /**
+     * Updates which of the body's edge points are close enough to the
+     * center of a map tile to count as a collision.
+     * Squared distances are compared so no square roots are needed.
+     *
+     * @param centerX
+     *          X-coordinate of the tile's center
+     * @param centerY
+     *          Y-coordinate of the tile's center
+     */
+    protected void probeTile(double centerX, double centerY) {
+        double left = probeLeft - centerX;
+        double right = probeRight - centerX;
+        double middleX = probeCenterX - centerX;
+        double top = probeTop - centerY;
+        double bottom = probeBottom - centerY;
+        double middleY = probeCenterY - centerY;
+        left *= left;
+        right *= right;
+        middleX *= middleX;
+        top *= top;
+        bottom *= bottom;
+        middleY *= middleY;
+
+        //update if the corners have collided
+        if (left + top < COLLISION_DISTANCE_SQUARED) {
+            topLeft = true;
+        }
+        if (right + top < COLLISION_DISTANCE_SQUARED) {
+            topRight = true;
+        }
+        if (right + middleY < COLLISION_DISTANCE_SQUARED) {
+            midRight = true;
+        }
+        if (left + middleY < COLLISION_DISTANCE_SQUARED) {
+            midLeft = true;
+        }
+        if (middleX + top < COLLISION_DISTANCE_SQUARED) {
+            topMiddle = true;
+        }
+        if (middleX + bottom < COLLISION_DISTANCE_SQUARED) {
+            bottomMiddle = true;
+        }
+        if (left + bottom < COLLISION_DISTANCE_SQUARED) {
+            bottomLeft = true;
+        }
+        if (right + bottom < COLLISION_DISTANCE_SQUARED) {
+            bottomRight = true;
+        }
+    }
+
+    /**
+     * This method decides which sides of the body experienced a collision
+     * according to which of its corners touched a map tile.
+     * This monitors which sides have experienced a collision to decide if the
+     * body should be prevented from moving.
+     * This is to be called after every touched tile has been passed to
+     * probeTile() in order to reduce the computations done per
+     * update() method call.
+     */
+    public void updateCollisions() {
+        //Now that the corners have been updated, have the appropriate affect
+        //in the game.
+        if (topLeft || midLeft || (!bottomMiddle && bottomLeft)) {
+            hitLeft = true;
+        }
+        if (topRight || midRight || (!bottomMiddle && bottomRight)) {
+            hitRight = true;
+        }
+        if ((bottomLeft || bottomRight || bottomMiddle) &&
+                //If one of the bottom corners or middle touches a map tile
+                //but not the edge of the character.
+                //This prevents the character from sticking to walls when
+                //falling or jumping
+                //The direction.equals part prevents the character from falling
+                //off a tile when it reaches the edge, i.e. forcing the character
+                //to fall only takes place when it's facing and touching a wall.
+                !(direction.equals("Left") && bottomLeft && hitLeft && !bottomMiddle) &&
+                !(direction.equals("Right") && bottomRight && hitRight && !bottomMiddle)) {
+            onGround = true;
+        }
+        //If the top collides but not the sides (which would prevent
+        //jumping when on the ground touching a wall)
+        if (topMiddle && !midLeft && !midRight) {
+            jumpTime = jumpHeight;
+            topLeft = topRight = topMiddle = false;
+        }
+    }
+
+    public double getX() {
+        return x;
+    }
+
+    public double getY() {
+        return y;
+    }
+
+    public double getWidth() {
+        return width;
+    }
+
+    public double getHeight() {
+        return height;
+    }
+
+    public double getPreviousX() {
+        return previousX;
+    }
+
+    public double getPreviousY() {
+        return previousY;
+    }
+
+    public int getHealth() {
+        return health;
+    }
+
+    public int getMaxHealth() {
+        return maxHealth;
+    }
+
+    public boolean isAlive() {
+        return alive;
+    }
+
+    public boolean isRemoved() {
+        return removed;
+    }
+
+    public boolean isOnGround() {
+        return onGround;
+    }
+
+    public String getDirection() {
+        return direction;
+    }
+
+    public int getSpriteMode() {
+        return spriteMode;
+    }
+
+    public int getSpriteAction() {
+        return spriteAction;
+    }
+
+    public int getSpriteFrame() {
+        return spriteFrame;
+    }
+
+    /**
+     * Gets which way the body was facing when its sprite last changed.
+     *
+     * @return
+     *          "Left" or "Right"
+     */
+    public String getSpriteDirection() {
+        return spriteDirection;
+    }
+}
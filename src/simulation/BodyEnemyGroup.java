@@ -0,0 +1,118 @@
+package simulation;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Enemies stored as one Body object each. Each enemy can be drawn by its
+ * own view, and enemies of different kinds can be mixed.
+ *
+ * @author dPow
+ */
+public class BodyEnemyGroup implements EnemyGroup {
+    private final List<Body> bodies = new ArrayList<>();
+
+    public void add(Body enemy) {
+        bodies.add(enemy);
+    }
+
+    public List<Body> getBodies() {
+        return bodies;
+    }
+
+    @Override
+    public int size() {
+        return bodies.size();
+    }
+
+    @Override
+    public double getX(int id) {
+        return bodies.get(id).x;
+    }
+
+    @Override
+    public double getY(int id) {
+        return bodies.get(id).y;
+    }
+
+    @Override
+    public int getHealth(int id) {
+        return bodies.get(id).health;
+    }
+
+    @Override
+    public int getSpawnMarker(int id) {
+        return bodies.get(id).spawnMarker;
+    }
+
+    @Override
+    public void despawn(int id) {
+        bodies.get(id).removed = true;
+    }
+
+    @Override
+    public void savePositions() {
+        for (int i = 0; i < bodies.size(); i++) {
+            bodies.get(i).savePosition();
+        }
+    }
+
+    @Override
+    public void insertInto(SpatialHash hash) {
+        for (int i = 0; i < bodies.size(); i++) {
+            Body enemy = bodies.get(i);
+            hash.insert(i, enemy.x, enemy.y, enemy.width, enemy.height);
+        }
+    }
+
+    @Override
+    public void update(int from, int to, SoundQueue sounds) {
+        for (int i = from; i < to; i++) {
+            Body enemy = bodies.get(i);
+            enemy.soundQueue = sounds;
+            enemy.update();
+            enemy.soundQueue = null;
+        }
+    }
+
+    @Override
+    public void removeDead() {
+        bodies.removeIf(Body::isRemoved);
+    }
+
+    @Override
+    public boolean touches(int id, Body body) {
+        return Body.checkObjectCollision(body, bodies.get(id));
+    }
+
+    @Override
+    public boolean isAlive(int id) {
+        return bodies.get(id).alive;
+    }
+
+    @Override
+    public int getDamage(int id) {
+        return bodies.get(id).enemyDamage;
+    }
+
+    @Override
+    public boolean isJustHurt(int id) {
+        return bodies.get(id).justHurt;
+    }
+
+    @Override
+    public void scratch(int id, int damage) {
+        Body enemy = bodies.get(id);
+        enemy.health -= damage;
+        enemy.justHurt = true;
+        enemy.flinching = true;
+    }
+
+    @Override
+    public void burn(int id, int damage) {
+        Body enemy = bodies.get(id);
+        enemy.health -= damage;
+        enemy.flinching = true;
+        enemy.moving = false;
+    }
+}
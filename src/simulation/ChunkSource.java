@@ -0,0 +1,29 @@
+package simulation;
+
+/**
+ * Where a World reads its map from, a few columns at a time. A World only
+ * keeps the columns around the camera, so the rest of the map can stay in
+ * its file (see MapLoader.openChunks()) instead of in memory.
+ *
+ * @author dPow
+ */
+public interface ChunkSource {
+
+    int getRows();
+
+    int getColumns();
+
+    /**
+     * Copies the tile numbers of some columns, including the player and
+     * enemy tiles.
+     *
+     * @param firstColumn
+     *          First column to copy
+     * @param count
+     *          Number of columns to copy; they must all be in the map
+     * @param into
+     *          int[row][col - firstColumn] to copy the tiles into. It has
+     *          a row for each row of the map and at least count columns.
+     */
+    void readColumns(int firstColumn, int count, int[][] into);
+}
@@ -0,0 +1,252 @@
+package simulation;
+
+import java.util.Arrays;
+
+/**
+ * Compact copy of a level's map used for collision checks.
+ * Tile numbers are stored in a flat array in row-major order and
+ * solid (non-decoration) tiles are marked in a bit set, so looking
+ * up a tile never boxes an Integer or follows a pointer.
+ *
+ * The map is held in chunks of CHUNK_COLUMNS columns, and only a fixed
+ * number of chunks (slots) are loaded at once. Chunk c is kept in slot
+ * c % slots, so finding a tile is still a little arithmetic. A World loads
+ * the chunks around the camera and evicts the rest, so the layer's size
+ * doesn't depend on how wide the map is. Tiles in chunks that aren't
+ * loaded are blank.
+ *
+ * @author dPow
+ */
+public class CollisionLayer {
+    public static final int CHUNK_COLUMNS = 16;
+    private static final int CHUNK_SHIFT = 4; //log2(CHUNK_COLUMNS)
+
+    private final int rows;
+    private final int columns;
+    private final int numDecorationTiles;
+    private final int slotMask; //Slots are a power of 2
+    private final int slotSize; //Tiles in a slot
+    private final int[] slotChunks; //Chunk loaded in each slot, -1 if none
+    private final short[] tiles; //tiles[slot*slotSize + row*CHUNK_COLUMNS + col % CHUNK_COLUMNS]
+    private final long[] solid; //One bit per tile, set if the tile isn't a decoration
+
+    /**
+     * Packs the whole map's tile numbers and marks which ones are solid.
+     * Every chunk is loaded.
+     *
+     * @param mapTiles
+     *          Matrix of tile numbers, int[row][col]
+     * @param numDecorationTiles
+     *          Tile numbers below this are ghost tiles that
+     *          entities can pass through
+     */
+    public CollisionLayer(int[][] mapTiles, int numDecorationTiles) {
+        this(mapTiles.length, mapTiles[0].length, numDecorationTiles,
+                getChunkCount(mapTiles[0].length));
+        int[][] chunk = new int[rows][CHUNK_COLUMNS];
+        for (int c = 0; c < getChunkCount(); c++) {
+            int count = getChunkColumns(c);
+            for (int row = 0; row < rows; row++) {
+                System.arraycopy(mapTiles[row], c*CHUNK_COLUMNS, chunk[row], 0, count);
+            }
+            load(c, chunk);
+        }
+    }
+
+    /**
+     * Makes an empty layer for a map. No chunks are loaded.
+     *
+     * @param rows
+     *          Number of rows in the map
+     * @param columns
+     *          Number of columns in the map
+     * @param numDecorationTiles
+     *          Tile numbers below this are ghost tiles that
+     *          entities can pass through
+     * @param maxChunks
+     *          How many chunks can be loaded at once. Rounded up to a power
+     *          of 2, but never more than the map has.
+     */
+    public CollisionLayer(int rows, int columns, int numDecorationTiles, int maxChunks) {
+        this.rows = rows;
+        this.columns = columns;
+        this.numDecorationTiles = numDecorationTiles;
+        int slots = Integer.highestOneBit(Math.max(maxChunks, 1) - 1) << 1;
+        slots = Math.max(1, Math.min(slots,
+                Integer.highestOneBit(getChunkCount(columns) - 1) << 1));
+        slotMask = slots - 1;
+        slotSize = rows*CHUNK_COLUMNS;
+        slotChunks = new int[slots];
+        Arrays.fill(slotChunks, -1);
+        tiles = new short[slots*slotSize];
+        solid = new long[(tiles.length + 63) >>> 6];
+    }
+
+    private static int getChunkCount(int columns) {
+        return (columns + CHUNK_COLUMNS - 1) >>> CHUNK_SHIFT;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+
+    public int getChunkCount() {
+        return getChunkCount(columns);
+    }
+
+    /**
+     * @param chunk
+     *          Index of a chunk
+     * @return
+     *          Number of columns in the chunk; only the last chunk can have
+     *          fewer than CHUNK_COLUMNS
+     */
+    public int getChunkColumns(int chunk) {
+        return Math.min(CHUNK_COLUMNS, columns - chunk*CHUNK_COLUMNS);
+    }
+
+    /**
+     * @param col
+     *          Column of the map
+     * @return
+     *          Index of the chunk the column is in
+     */
+    public static int getChunk(int col) {
+        return col >> CHUNK_SHIFT;
+    }
+
+    /**
+     * @return
+     *          Number of chunks that can be loaded at once
+     */
+    public int getSlots() {
+        return slotChunks.length;
+    }
+
+    /**
+     * Gets which chunk is in the slot a chunk would be loaded into. Loading
+     * the chunk will evict that one.
+     *
+     * @param chunk
+     *          Index of a chunk
+     * @return
+     *          Index of the chunk in its slot, or -1 if the slot is empty
+     */
+    public int getChunkInSlotOf(int chunk) {
+        return slotChunks[chunk & slotMask];
+    }
+
+    /**
+     * Gets the chunk in a slot.
+     *
+     * @param slot
+     *          Index of the slot, from 0 to getSlots() - 1
+     * @return
+     *          Index of the chunk, or -1 if the slot is empty
+     */
+    public int getChunkInSlot(int slot) {
+        return slotChunks[slot];
+    }
+
+    public boolean isLoaded(int chunk) {
+        return slotChunks[chunk & slotMask] == chunk;
+    }
+
+    /**
+     * Packs a chunk's tile numbers into its slot and marks which ones are
+     * solid, replacing the chunk that was there.
+     *
+     * @param chunk
+     *          Index of the chunk
+     * @param chunkTiles
+     *          int[row][col - first column of the chunk] of tile numbers,
+     *          with no player or enemy tiles
+     */
+    public void load(int chunk, int[][] chunkTiles) {
+        int slot = chunk & slotMask;
+        int count = getChunkColumns(chunk);
+        int base = slot*slotSize;
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < CHUNK_COLUMNS; col++) {
+                int tile = col < count ? chunkTiles[row][col] : 0;
+                if (tile < 0 || tile > Short.MAX_VALUE) {
+                    throw new IllegalArgumentException("Invalid tile number " + tile
+                            + " at row " + row + ", column " + (chunk*CHUNK_COLUMNS + col));
+                }
+                int i = base + row*CHUNK_COLUMNS + col;
+                tiles[i] = (short) tile;
+                if (tile > numDecorationTiles - 1) {
+                    solid[i >>> 6] |= 1L << i;
+                } else {
+                    solid[i >>> 6] &= ~(1L << i);
+                }
+            }
+        }
+        slotChunks[slot] = chunk;
+    }
+
+    /**
+     * Unloads a chunk. Its tiles become blank until it's loaded again.
+     *
+     * @param chunk
+     *          Index of the chunk
+     */
+    public void evict(int chunk) {
+        if (isLoaded(chunk)) {
+            slotChunks[chunk & slotMask] = -1;
+        }
+    }
+
+    /**
+     * Finds where a tile is kept.
+     *
+     * @return
+     *          Index of the tile in tiles and solid, or -1 if its chunk
+     *          isn't loaded
+     */
+    private int indexOf(int row, int col) {
+        int chunk = col >> CHUNK_SHIFT;
+        int slot = chunk & slotMask;
+        if (slotChunks[slot] != chunk) {
+            return -1;
+        }
+        return slot*slotSize + row*CHUNK_COLUMNS + (col & (CHUNK_COLUMNS - 1));
+    }
+
+    public int getTile(int row, int col) {
+        int i = indexOf(row, col);
+        return i < 0 ? 0 : tiles[i];
+    }
+
+    /**
+     * Checks if entities should collide with the given tile.
+     *
+     * @param row
+     *          Row of the tile
+     * @param col
+     *          Column of the tile
+     * @return
+     *          True if the tile isn't a decoration tile, else false.
+     *          Tiles in chunks that aren't loaded aren't solid.
+     */
+    public boolean isSolid(int row, int col) {
+        int i = indexOf(row, col);
+        return i >= 0 && (solid[i >>> 6] & (1L << i)) != 0;
+    }
+
+    /**
+     * Gets the approximate number of bytes used by the layer's arrays.
+     * Useful for sizing very large maps.
+     *
+     * @return
+     *          Size of the tile and solidity arrays in bytes
+     */
+    public long getMemoryFootprint() {
+        return (long) tiles.length*Short.BYTES + (long) solid.length*Long.BYTES
+                + (long) slotChunks.length*Integer.BYTES;
+    }
+}
@@ -0,0 +1,135 @@
+package simulation;
+
+/**
+ * The enemies of a level. Enemies are referred to by their index, which
+ * is also their id in the World's enemy hash, so the player and fireballs
+ * can hit them without knowing how they are stored.
+ *
+ * Indices only stay valid until removeDead() is called at the end of
+ * each tick.
+ *
+ * @author dPow
+ */
+public interface EnemyGroup {
+
+    int size();
+
+    double getX(int id);
+
+    double getY(int id);
+
+    int getHealth(int id);
+
+    /**
+     * @param id
+     *          Index of the enemy
+     * @return
+     *          Spawn marker the enemy came from (see World), or -1 if it
+     *          wasn't spawned from the map
+     */
+    int getSpawnMarker(int id);
+
+    /**
+     * Takes an enemy out of the world without killing it, because the
+     * part of the map it's standing on has been evicted. It is dropped by the next
+     * removeDead().
+     *
+     * @param id
+     *          Index of the enemy
+     */
+    void despawn(int id);
+
+    /**
+     * Remembers every enemy's location at the start of a tick.
+     */
+    void savePositions();
+
+    /**
+     * Adds every enemy's bounding box to the broad-phase, using its
+     * index as the id.
+     *
+     * @param hash
+     *          Empty hash to fill
+     */
+    void insertInto(SpatialHash hash);
+
+    /**
+     * Runs one tick of every enemy.
+     */
+    default void update() {
+        update(0, size(), null);
+    }
+
+    /**
+     * Runs one tick of a range of enemies. Updating an enemy only changes
+     * that enemy, so different ranges can be updated at the same time as
+     * long as each has its own sound queue.
+     *
+     * @param from
+     *          Index of the first enemy to update
+     * @param to
+     *          Index after the last enemy to update
+     * @param sounds
+     *          Where to queue the enemies' sounds, or null to play them
+     *          right away
+     */
+    void update(int from, int to, SoundQueue sounds);
+
+    /**
+     * Drops the enemies whose death animation has finished.
+     */
+    void removeDead();
+
+    /**
+     * Checks if an enemy's bounding box touches a body's, the same way as
+     * Body.checkObjectCollision().
+     *
+     * @param id
+     *          Index of the enemy
+     * @param body
+     *          Body to check against
+     * @return
+     *          True if they collide, else false
+     */
+    boolean touches(int id, Body body);
+
+    boolean isAlive(int id);
+
+    /**
+     * @param id
+     *          Index of the enemy
+     * @return
+     *          Damage the enemy does to the player on contact
+     */
+    int getDamage(int id);
+
+    /**
+     * @param id
+     *          Index of the enemy
+     * @return
+     *          True if the enemy was scratched and is still flinching
+     */
+    boolean isJustHurt(int id);
+
+    /**
+     * Hurts an enemy with a scratch attack. It can't be scratched again
+     * until it stops flinching.
+     *
+     * @param id
+     *          Index of the enemy
+     * @param damage
+     *          Health to take away
+     */
+    void scratch(int id, int damage);
+
+    /**
+     * Hurts an enemy with a fireball. It stops moving until it stops
+     * flinching.
+     *
+     * @param id
+     *          Index of the enemy
+     * @param damage
+     *          Health to take away
+     */
+    void burn(int id, int damage);
+}
@@ -0,0 +1,155 @@
+package simulation;
+
+/**
+ * Game logic of a fireball shot by the player. It flies straight until it
+ * hits a solid tile, an enemy or the edge of the screen, then plays its
+ * dissipation animation and is removed.
+ *
+ * @author dPow
+ */
+public class FireballBody extends Body {
+    //Sprite rows: 0 = flying, 1 = dissipating
+    public static final int[] FRAME_COUNTS = {4, 3};
+    private static final int FLYING = 0;
+    private static final int DISSIPATING = 1;
+
+    int speed;
+    boolean hitObject;
+
+    /**
+     * Creates a fireball in front of the player's mouth.
+     *
+     * @param world
+     *          World the fireball lives in
+     * @param player
+     *          Player shooting the fireball
+     * @param direction
+     *          "Left" or "Right"
+     * @param speed
+     *          Distance the fireball moves each tick
+     */
+    public FireballBody(World world, PlayerBody player, String direction, int speed) {
+        super(world);
+        this.direction = direction;
+        this.speed = speed;
+        width = height = World.PLAYER_SIZE / 2;
+        double startX = player.x;
+        if (direction.equals("Left")) {
+            startX -= width/2;
+        } else if (direction.equals("Right")) {
+            startX += width;
+        }
+        setPosition(startX, player.y + World.PLAYER_SIZE / 4);
+        animationCycler = 0;
+        showSprite(SPRITE_NORMAL, FLYING, 0);
+    }
+
+    /**
+     * Fireball's movement.
+     */
+    @Override
+    public void update() {
+        if (!hitObject) {
+            if (direction.equals("Left")) {
+                x -= speed;
+            } else if (direction.equals("Right")) {
+                x += speed;
+            }
+            checkFireballCollision();
+        }
+        updateAnimation();
+    }
+
+    /**
+     * Replaces the body's checkMapCollision() method
+     * because it needs to toggle if the fireball hits
+     * any object, including an enemy.
+     */
+    public void checkFireballCollision() {
+        //Delete fireball if it collides with map or
+        //if it goes off-screen
+        if (touchesSolidTile() ||
+                getScreenX() > world.getWidth() || getScreenX() + width < 0) {
+            if (!hitObject) {
+                //Reset animation cycler only if the fireball newly
+                //collided with a map tile
+                animationCycler = 0; //Resets the sprite cycler to the first
+                //sprite to show the disipation of fireball
+            }
+            hitObject = true;
+        }
+
+        EnemyGroup enemies = world.getEnemyGroup();
+        int candidates = queryNearbyEnemies();
+        for (int i = 0; i < candidates; i++){
+            int enemy = getNearbyEnemy(i);
+            if (enemies.touches(enemy, this)){
+                hitObject = true;
+                animationCycler = 0;
+                enemies.burn(enemy, world.getPlayer().fireDamage);
+            }
+        }
+    }
+
+    /**
+     * Checks if the fireball is touching any non-decoration map tile.
+     *
+     * @return
+     *          True if a solid tile is touched, else false
+     */
+    private boolean touchesSolidTile() {
+        TileIndex index = world.getTileIndex();
+        int lastRow = index.lastRow(y, height);
+        int lastCol = index.lastColumn(x, width);
+        for (int row = index.firstRow(y); row <= lastRow; row++) {
+            for (int col = index.firstColumn(x); col <= lastCol; col++) {
+                if (index.isSolid(row, col)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Updates the sprite of the fireball. Once the fireball has dissipated
+     * it is marked as removed, and PlayerBody.updateFireballs() drops it.
+     */
+    @Override
+    public void updateAnimation() {
+        timeToUpdateCycler++;
+        //Fireball sprite should update faster than character sprites
+        if (timeToUpdateCycler == UPDATE_TIME / 2) {
+            int fireballState = FLYING;
+            if (hitObject) {
+                fireballState = DISSIPATING;
+            }
+            showSprite(SPRITE_NORMAL, fireballState, animationCycler);
+            animationCycler++;
+            if (animationCycler >= FRAME_COUNTS[fireballState]) {
+                if (fireballState == DISSIPATING) {
+                    //Label fireball for destruction
+                    removed = true;
+                    //I think it's better without the dissipate sound
+                }
+                animationCycler = 0;
+            }
+            timeToUpdateCycler = 0;
+        }
+    }
+
+    @Override
+    protected Sound getDeathSound() {
+        return Sound.DISSIPATE;
+    }
+
+    @Override
+    protected Sound getFlinchSound() {
+        return null; //None
+    }
+
+    @Override
+    protected int[] getFrameCounts() {
+        return FRAME_COUNTS;
+    }
+}
@@ -0,0 +1,30 @@
+package simulation;
+
+/**
+ * Player controls, as passed from the keyboard to the simulation.
+ *
+ * @author dPow
+ */
+public enum Input {
+    LEFT_PRESSED,
+    RIGHT_PRESSED,
+    MOVE_RELEASED,
+    JUMP_PRESSED,
+    JUMP_RELEASED,
+    SCRATCH_PRESSED,
+    FIRE_PRESSED;
+
+    private static final Input[] VALUES = values();
+
+    /**
+     * Gets an input from its ordinal without allocating.
+     *
+     * @param ordinal
+     *          Value of ordinal()
+     * @return
+     *          The input
+     */
+    public static Input fromOrdinal(int ordinal) {
+        return VALUES[ordinal];
+    }
+}
@@ -0,0 +1,111 @@
+package simulation;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free ring buffer of timestamped inputs, written by one thread (the
+ * key handlers) and read by one thread (the game loop). Inputs are only
+ * applied when the simulation drains the queue at the start of a tick, so
+ * the player's state never changes part-way through a tick, and the
+ * timestamps show how long each input waited to be applied.
+ *
+ * If the queue is full, new inputs are dropped and counted.
+ *
+ * @author dPow
+ */
+public class InputQueue {
+    public static final int DEFAULT_CAPACITY = 256;
+
+    /**
+     * Receives the inputs taken out of the queue.
+     */
+    public interface Handler {
+        /**
+         * @param input
+         *          The input
+         * @param time
+         *          When the input happened, from System.nanoTime()
+         */
+        void handle(Input input, long time);
+    }
+
+    private final int mask;
+    private final byte[] inputs;
+    private final long[] times;
+    //Only the producer writes tail and only the consumer writes head
+    private final AtomicLong head = new AtomicLong(); //Next slot to read
+    private final AtomicLong tail = new AtomicLong(); //Next slot to write
+    private volatile long dropped;
+
+    public InputQueue() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates an empty queue.
+     *
+     * @param capacity
+     *          Most inputs that can wait at once; rounded up to a power of 2
+     */
+    public InputQueue(int capacity) {
+        int size = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+        mask = size - 1;
+        inputs = new byte[size];
+        times = new long[size];
+    }
+
+    /**
+     * Adds an input. Only call from the producer thread.
+     *
+     * @param input
+     *          The input
+     * @param time
+     *          When the input happened, from System.nanoTime()
+     * @return
+     *          False if the queue was full and the input was dropped
+     */
+    public boolean offer(Input input, long time) {
+        long t = tail.get();
+        if (t - head.get() > mask) {
+            dropped++;
+            return false;
+        }
+        int slot = (int) t & mask;
+        inputs[slot] = (byte) input.ordinal();
+        times[slot] = time;
+        //Publishes the slot to the consumer
+        tail.lazySet(t + 1);
+        return true;
+    }
+
+    /**
+     * Passes every waiting input to the handler, oldest first. Only call
+     * from the consumer thread.
+     *
+     * @param handler
+     *          Receives the inputs
+     * @return
+     *          Number of inputs drained
+     */
+    public int drainTo(Handler handler) {
+        long h = head.get();
+        long t = tail.get();
+        for (long i = h; i < t; i++) {
+            int slot = (int) i & mask;
+            handler.handle(Input.fromOrdinal(inputs[slot]), times[slot]);
+        }
+        //Frees the slots for the producer
+        head.lazySet(t);
+        return (int) (t - h);
+    }
+
+    /**
+     * Gets how many inputs were dropped because the queue was full.
+     *
+     * @return
+     *          Number of dropped inputs since the queue was created
+     */
+    public long getDropped() {
+        return dropped;
+    }
+}
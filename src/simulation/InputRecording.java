@@ -0,0 +1,250 @@
+package simulation;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * The inputs applied to the player on each tick of a level, so that the
+ * level can be played again exactly the same way without a window.
+ *
+ * A World records into it while it is set with World.setRecording(). When
+ * the level is over, finish() saves how many ticks ran and the world's
+ * state hash, which a replay of the recording must end with.
+ *
+ * Recordings are stored as (all numbers big-endian):
+ * <pre>
+ *   int     MAGIC
+ *   short   VERSION
+ *   UTF     level ID (the resource path of the level's .map file)
+ *   long    seed
+ *   double  screen width
+ *   double  screen height
+ *   int     number of decoration tiles
+ *   long    number of ticks
+ *   long    state hash after the last tick
+ *   int     number of inputs
+ *   int     length of the input data in bytes
+ *   input data: for each input, the number of ticks since the previous
+ *           input as an unsigned varint, then the Input's ordinal as a byte
+ * </pre>
+ *
+ * @author dPow
+ */
+public class InputRecording {
+    public static final int MAGIC = 0x44475250; //"DGRP"
+    //2: enemies only spawn when their chunk of the map is activated, so
+    //version 1 recordings don't end in the same state
+    //3: killed enemies don't respawn and enemies at the edge of the loaded
+    //chunks are despawned by where they are, not where they spawned
+    public static final short VERSION = 3;
+
+    private final String levelId;
+    private final long seed;
+    private final double width;
+    private final double height;
+    private final int numDecorationTiles;
+    private long ticks;
+    private long stateHash;
+    private int inputCount;
+    private byte[] data;
+    private int length; //Bytes of data used
+    private long lastTick; //Tick of the last recorded input
+    private int readPos; //Position in data while replaying
+
+    /**
+     * Starts an empty recording of a level.
+     *
+     * @param levelId
+     *          Resource path of the level's .map file
+     * @param seed
+     *          Seed of the level's random numbers. The simulation doesn't
+     *          use any yet, so this is only stored for later versions.
+     * @param width
+     *          Width of the screen, as passed to the World
+     * @param height
+     *          Height of the screen, as passed to the World
+     * @param numDecorationTiles
+     *          Number of decoration tiles, as passed to the World
+     */
+    public InputRecording(String levelId, long seed, double width, double height,
+            int numDecorationTiles) {
+        this.levelId = levelId;
+        this.seed = seed;
+        this.width = width;
+        this.height = height;
+        this.numDecorationTiles = numDecorationTiles;
+        data = new byte[256];
+    }
+
+    /**
+     * Adds an input that was applied on the given tick. Ticks must not
+     * go backwards.
+     *
+     * @param tick
+     *          Tick number, as returned by World.getTicks() during the tick
+     * @param in
+     *          The input
+     */
+    void record(long tick, Input in) {
+        long delta = tick - lastTick;
+        lastTick = tick;
+        if (length + 11 > data.length) {
+            data = Arrays.copyOf(data, data.length*2);
+        }
+        //7 bits at a time, lowest first; the top bit says more follow
+        while ((delta & ~0x7FL) != 0) {
+            data[length++] = (byte) ((delta & 0x7F) | 0x80);
+            delta >>>= 7;
+        }
+        data[length++] = (byte) delta;
+        data[length++] = (byte) in.ordinal();
+        inputCount++;
+    }
+
+    /**
+     * Ends the recording with the world's current tick and state.
+     *
+     * @param world
+     *          The world that was recorded
+     */
+    public void finish(World world) {
+        ticks = world.getTicks();
+        stateHash = world.getStateHash();
+    }
+
+    /**
+     * Builds a world for the recorded level with the recorded settings.
+     *
+     * @param map
+     *          Map of the level
+     * @param packedEnemies
+     *          True to keep the snails in a SnailStore
+     * @return
+     *          A new world at tick 0
+     */
+    public World createWorld(ChunkSource map, boolean packedEnemies) {
+        return new World(map, numDecorationTiles, width, height, packedEnemies);
+    }
+
+    /**
+     * Plays the recording on a new world of its level, as fast as
+     * possible. Each input is sent to the world's input queue just
+     * before the tick it was applied on.
+     *
+     * @param world
+     *          World built by createWorld()
+     */
+    public void replay(World world) {
+        InputQueue queue = world.getInput();
+        readPos = 0;
+        int remaining = inputCount;
+        long tick = remaining > 0 ? readDelta() : 0; //Tick of the next input
+        while (world.getTicks() < ticks && !world.isFinished()) {
+            long next = world.getTicks() + 1;
+            while (remaining > 0 && tick == next) {
+                queue.offer(Input.fromOrdinal(data[readPos++]), System.nanoTime());
+                if (--remaining > 0) {
+                    tick += readDelta();
+                }
+            }
+            world.step();
+        }
+    }
+
+    /**
+     * Reads the varint at readPos.
+     *
+     * @return
+     *          Ticks between two inputs
+     */
+    private long readDelta() {
+        long delta = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = data[readPos++];
+            delta |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while (b < 0);
+        return delta;
+    }
+
+    /**
+     * Saves the recording.
+     *
+     * @param out
+     *          Where to write it. It isn't closed.
+     * @throws IOException
+     *          If it can't be written
+     */
+    public void write(OutputStream out) throws IOException {
+        DataOutputStream dos = new DataOutputStream(out);
+        dos.writeInt(MAGIC);
+        dos.writeShort(VERSION);
+        dos.writeUTF(levelId);
+        dos.writeLong(seed);
+        dos.writeDouble(width);
+        dos.writeDouble(height);
+        dos.writeInt(numDecorationTiles);
+        dos.writeLong(ticks);
+        dos.writeLong(stateHash);
+        dos.writeInt(inputCount);
+        dos.writeInt(length);
+        dos.write(data, 0, length);
+        dos.flush();
+    }
+
+    /**
+     * Loads a recording saved by write().
+     *
+     * @param in
+     *          Where to read it from. It isn't closed.
+     * @return
+     *          The recording
+     * @throws IOException
+     *          If it can't be read or isn't a recording of this version
+     */
+    public static InputRecording read(InputStream in) throws IOException {
+        DataInputStream dis = new DataInputStream(in);
+        if (dis.readInt() != MAGIC) {
+            throw new IOException("Not an input recording");
+        }
+        short version = dis.readShort();
+        if (version != VERSION) {
+            throw new IOException("Unsupported recording version " + version);
+        }
+        InputRecording recording = new InputRecording(dis.readUTF(), dis.readLong(),
+                dis.readDouble(), dis.readDouble(), dis.readInt());
+        recording.ticks = dis.readLong();
+        recording.stateHash = dis.readLong();
+        recording.inputCount = dis.readInt();
+        recording.length = dis.readInt();
+        recording.data = new byte[recording.length];
+        dis.readFully(recording.data);
+        return recording;
+    }
+
+    public String getLevelId() {
+        return levelId;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public long getTicks() {
+        return ticks;
+    }
+
+    public long getStateHash() {
+        return stateHash;
+    }
+
+    public int getInputCount() {
+        return inputCount;
+    }
+}
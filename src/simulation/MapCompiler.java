@@ -0,0 +1,55 @@
+package simulation;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Compiles text .map files into the binary .bmap format that the game
+ * loads. Run by the build's compileMaps task:
+ * <pre>
+ *   MapCompiler outputDir tileSetId file.map...
+ * </pre>
+ * Each file.map (or gzipped file.map.gz) becomes outputDir/file.bmap.
+ *
+ * @author dPow
+ */
+public class MapCompiler {
+    private MapCompiler(){}
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 3) {
+            System.err.println("Usage: MapCompiler outputDir tileSetId file.map...");
+            System.exit(2);
+        }
+        Path outputDir = Paths.get(args[0]);
+        String tileSetId = args[1];
+        Files.createDirectories(outputDir);
+        for (int i = 2; i < args.length; i++) {
+            Path source = Paths.get(args[i]);
+            String name = source.getFileName().toString();
+            if (name.endsWith(MapLoader.GZIP_EXTENSION)) {
+                name = name.substring(0, name.length() - MapLoader.GZIP_EXTENSION.length());
+            }
+            if (name.endsWith(MapLoader.TEXT_EXTENSION)) {
+                name = name.substring(0, name.length() - MapLoader.TEXT_EXTENSION.length());
+            }
+            Path target = outputDir.resolve(name + MapLoader.BINARY_EXTENSION);
+
+            int[][] mapTiles;
+            try {
+                mapTiles = MapLoader.readMap(source);
+            } catch (IOException e) {
+                throw new IOException("Can't compile " + source, e);
+            }
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(target))) {
+                MapLoader.writeBinaryMap(mapTiles, tileSetId, out);
+            }
+            System.out.println(source + " -> " + target + " (" + Files.size(source) + " -> "
+                    + Files.size(target) + " bytes)");
+        }
+    }
+}
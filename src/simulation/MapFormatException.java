@@ -0,0 +1,38 @@
+package simulation;
+
+import java.io.IOException;
+
+/**
+ * Thrown when a text .map file isn't laid out as expected. Tells where in
+ * the file the problem is, so the map can be fixed in an editor.
+ *
+ * @author dPow
+ */
+public class MapFormatException extends IOException {
+    private static final long serialVersionUID = 1L;
+
+    private final int line;
+    private final int column;
+
+    /**
+     * @param line
+     *          Line of the file the problem is on, from 1
+     * @param column
+     *          Character of the line the problem is at, from 1
+     * @param message
+     *          What was wrong
+     */
+    public MapFormatException(int line, int column, String message) {
+        super("line " + line + ", column " + column + ": " + message);
+        this.line = line;
+        this.column = column;
+    }
+
+    public int getLine() {
+        return line;
+    }
+
+    public int getColumn() {
+        return column;
+    }
+}
@@ -0,0 +1,367 @@
+package simulation;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Reads the tile numbers of a level from its map file.
+ *
+ * Maps are written in the text .map format, which is easy to edit (and
+ * can be gzipped as .map.gz), and compiled by the build into the binary
+ * .bmap format, which can be loaded without parsing each tile. The binary
+ * format is (all numbers big-endian):
+ * <pre>
+ *   int     MAGIC
+ *   short   VERSION
+ *   int     rows
+ *   int     columns
+ *   short   length of the tile set ID, then the ID in UTF-8
+ *   int     number of spawns
+ *   for each spawn, sorted by column: int row, int column, int tile
+ *   byte    bytes per tile (1 or 2)
+ *   tiles:  rows*columns unsigned tile numbers, row by row. Spawn tiles
+ *           are 0 here and only listed in the spawn table.
+ * </pre>
+ * Since any column can be found in a binary map without reading the ones
+ * before it, a World can stream a binary map from openChunks() a chunk at
+ * a time.
+ *
+ * @author dPow
+ */
+public class MapLoader {
+    public static final int MAGIC = 0x44474D50; //"DGMP"
+    public static final short VERSION = 1;
+    public static final String TEXT_EXTENSION = ".map";
+    public static final String BINARY_EXTENSION = ".bmap";
+    public static final String GZIP_EXTENSION = ".gz";
+    private static final int GZIP_MAGIC = 0x1F8B; //First two bytes of a gzip file
+    //Binary maps copied out of the jar, by URL
+    private static final ConcurrentHashMap<String, Path> EXTRACTED = new ConcurrentHashMap<>();
+
+    private MapLoader() {
+    }
+
+    /**
+     * Reads a text .map file. Map files are intentionally stored with
+     * the number of rows in the first line and the number of columns in the
+     * second line, followed by one line of space-separated tile numbers
+     * per row. The file is streamed, not read whole, and no Strings are
+     * made for the numbers.
+     *
+     * @param in
+     *          The input stream of the .map file describing
+     *          which tile goes where. It is closed when done.
+     * @return
+     *          int[row][col] of tile numbers
+     * @throws MapFormatException
+     *          If the file isn't laid out like this; says on which line
+     *          and column
+     * @throws IOException
+     *          If the stream can't be read
+     */
+    public static int[][] readTextMap(InputStream in) throws IOException {
+        try (InputStream stream = in) {
+            return new MapTokenizer(stream).readMap();
+        }
+    }
+
+    /**
+     * Opens a level's map from the classpath, preferring the compiled
+     * binary map if there is one, then the text map, then the gzipped
+     * text map.
+     *
+     * @param resource
+     *          Resource path of the text .map file
+     * @return
+     *          Stream of the map, or null if there is none
+     */
+    public static InputStream openResource(String resource) {
+        if (resource.endsWith(TEXT_EXTENSION)) {
+            String binary = resource.substring(0, resource.length() - TEXT_EXTENSION.length())
+                    + BINARY_EXTENSION;
+            InputStream in = MapLoader.class.getResourceAsStream(binary);
+            if (in != null) {
+                return in;
+            }
+        }
+        InputStream in = MapLoader.class.getResourceAsStream(resource);
+        if (in == null) {
+            in = MapLoader.class.getResourceAsStream(resource + GZIP_EXTENSION);
+        }
+        return in;
+    }
+
+    /**
+     * Reads a map in any format: binary, text or gzipped. The format is
+     * found from the first bytes, not the file name.
+     *
+     * @param in
+     *          Stream of the map. It is closed when done.
+     * @return
+     *          int[row][col] of tile numbers
+     * @throws MapFormatException
+     *          If a text map isn't laid out correctly
+     * @throws IOException
+     *          If the stream can't be read or isn't a valid map
+     */
+    public static int[][] readMap(InputStream in) throws IOException {
+        try (InputStream stream = in.markSupported() ? in : new BufferedInputStream(in)) {
+            int magic = peekInt(stream);
+            if (magic >>> 16 == GZIP_MAGIC) {
+                return readMap(new GZIPInputStream(stream));
+            } else if (magic == MAGIC) {
+                return readBinaryMap(ByteBuffer.wrap(readAll(stream)));
+            }
+            return readTextMap(stream);
+        }
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Gets the first 4 bytes of a stream without reading past them.
+     */
+    private static int peekInt(InputStream in) throws IOException {
+        in.mark(Integer.BYTES);
+        int value = 0;
+        for (int i = 0; i < Integer.BYTES; i++) {
+            int b = in.read();
+            if (b == -1) {
+                break;
+            }
+            value |= b << (24 - 8*i);
+        }
+        in.reset();
+        return value;
+    }
+
+    /**
+     * Reads a map file in any format: binary, text or gzipped. Binary maps
+     * are memory-mapped instead of copied.
+     *
+     * @param file
+     *          Path of a binary or text map
+     * @return
+     *          int[row][col] of tile numbers
+     * @throws IOException
+     *          If the file can't be read or isn't a valid map
+     */
+    public static int[][] readMap(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (isBinary(buf)) {
+                return readBinaryMap(buf);
+            }
+        }
+        return readMap(Files.newInputStream(file));
+    }
+
+    private static boolean isBinary(ByteBuffer buf) {
+        return buf.remaining() >= Integer.BYTES && buf.getInt(buf.position()) == MAGIC;
+    }
+
+    /**
+     * Reads a binary map. Tiles are copied a row at a time; nothing is
+     * parsed per tile.
+     *
+     * @param buf
+     *          The map, from its current position
+     * @return
+     *          int[row][col] of tile numbers, with the spawn tiles in place
+     * @throws IOException
+     *          If the map isn't a valid binary map of this version
+     */
+    public static int[][] readBinaryMap(ByteBuffer buf) throws IOException {
+        ChunkSource map = new BinaryChunkSource(buf);
+        int[][] mapTiles = new int[map.getRows()][map.getColumns()];
+        map.readColumns(0, map.getColumns(), mapTiles);
+        return mapTiles;
+    }
+
+    /**
+     * Opens a level's map from the classpath for a World to stream. A
+     * compiled binary map is memory-mapped and read a chunk at a time when
+     * it's needed. One in a jar is first copied to a temporary file (once
+     * per run), so its size doesn't matter either way. A text map has to be
+     * read whole.
+     *
+     * @param resource
+     *          Resource path of the text .map file
+     * @return
+     *          The map
+     * @throws IOException
+     *          If there is no such map, or it can't be read
+     */
+    public static ChunkSource openChunks(String resource) throws IOException {
+        if (resource.endsWith(TEXT_EXTENSION)) {
+            URL binary = MapLoader.class.getResource(resource.substring(0,
+                    resource.length() - TEXT_EXTENSION.length()) + BINARY_EXTENSION);
+            if (binary != null) {
+                try {
+                    if ("file".equals(binary.getProtocol())) {
+                        return openChunks(Paths.get(binary.toURI()));
+                    }
+                    return openChunks(extract(binary));
+                } catch (URISyntaxException | IOException e) {
+                    //Read it like any other resource
+                }
+            }
+        }
+        InputStream in = openResource(resource);
+        if (in == null) {
+            throw new IOException("No map " + resource);
+        }
+        try (InputStream stream = new BufferedInputStream(in)) {
+            if (peekInt(stream) == MAGIC) {
+                return new BinaryChunkSource(ByteBuffer.wrap(readAll(stream)));
+            }
+            return new ArrayChunkSource(readMap(stream));
+        }
+    }
+
+    /**
+     * Copies a binary map out of a jar into a temporary file, so that it can
+     * be memory-mapped like any other. Each map is only copied once while
+     * the game is running.
+     *
+     * @param binary
+     *          URL of the map
+     * @return
+     *          The copy
+     * @throws IOException
+     *          If the map can't be read or the copy can't be written
+     */
+    private static Path extract(URL binary) throws IOException {
+        try {
+            return EXTRACTED.computeIfAbsent(binary.toString(), url -> {
+                try (InputStream in = binary.openStream()) {
+                    Path file = Files.createTempFile("dragongame-", BINARY_EXTENSION);
+                    file.toFile().deleteOnExit();
+                    Files.copy(in, file, StandardCopyOption.REPLACE_EXISTING);
+                    return file;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Opens a map file for a World to stream. A binary map is
+     * memory-mapped, so only the chunks that are used are read from disk;
+     * any other map is read whole.
+     *
+     * @param file
+     *          Path of a binary, text or gzipped map
+     * @return
+     *          The map
+     * @throws IOException
+     *          If the file can't be read or isn't a valid map
+     */
+    public static ChunkSource openChunks(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            //Stays mapped after the channel is closed
+            ByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (isBinary(buf)) {
+                return new BinaryChunkSource(buf);
+            }
+        }
+        return new ArrayChunkSource(readMap(Files.newInputStream(file)));
+    }
+
+    /**
+     * Writes a map in the binary format.
+     *
+     * @param mapTiles
+     *          int[row][col] of tile numbers, from 0 to 65535
+     * @param tileSetId
+     *          ID of the tile set the map is drawn with
+     * @param out
+     *          Where to write the map. It isn't closed.
+     * @throws IOException
+     *          If it can't be written
+     */
+    public static void writeBinaryMap(int[][] mapTiles, String tileSetId, OutputStream out)
+            throws IOException {
+        int rows = mapTiles.length;
+        int cols = mapTiles[0].length;
+        int spawns = 0;
+        int maxTile = 0;
+        for (int[] row : mapTiles) {
+            for (int tile : row) {
+                if (isSpawn(tile)) {
+                    spawns++;
+                }
+                maxTile = Math.max(maxTile, tile);
+            }
+        }
+        if (maxTile > 0xFFFF) {
+            throw new IllegalArgumentException("Tile " + maxTile + " doesn't fit in 2 bytes");
+        }
+
+        DataOutputStream dos = new DataOutputStream(out);
+        dos.writeInt(MAGIC);
+        dos.writeShort(VERSION);
+        dos.writeInt(rows);
+        dos.writeInt(cols);
+        byte[] id = tileSetId.getBytes(StandardCharsets.UTF_8);
+        dos.writeShort(id.length);
+        dos.write(id);
+        dos.writeInt(spawns);
+        for (int col = 0; col < cols; col++) {
+            for (int row = 0; row < rows; row++) {
+                if (isSpawn(mapTiles[row][col])) {
+                    dos.writeInt(row);
+                    dos.writeInt(col);
+                    dos.writeInt(mapTiles[row][col]);
+                }
+            }
+        }
+        int bytesPerTile = maxTile > 0xFF ? 2 : 1;
+        dos.writeByte(bytesPerTile);
+        for (int[] row : mapTiles) {
+            for (int tile : row) {
+                if (isSpawn(tile)) {
+                    tile = 0;
+                }
+                if (bytesPerTile == 1) {
+                    dos.writeByte(tile);
+                } else {
+                    dos.writeShort(tile);
+                }
+            }
+        }
+        dos.flush();
+    }
+
+    private static boolean isSpawn(int tile) {
+        return tile == World.PLAYER_TILE || World.ENEMY_TILES.contains(tile);
+    }
+}
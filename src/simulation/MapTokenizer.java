@@ -0,0 +1,240 @@
+package simulation;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reads a text .map file straight from its bytes. Numbers are read digit
+ * by digit into the map's array, so no Strings are made, and the file is
+ * read through one buffer instead of being loaded whole, however wide the
+ * map is.
+ *
+ * Lines can end with \n, \r\n or a lone \r, like BufferedReader.readLine().
+ * Keeps track of the line and column it's at, so that a badly written map
+ * is reported with a MapFormatException saying exactly where.
+ *
+ * @author dPow
+ */
+final class MapTokenizer {
+    private static final int BUFFER_SIZE = 64*1024;
+    private static final int EOF = -1;
+    //Tiles and sizes are far smaller; stops the number from overflowing
+    private static final int MAX_NUMBER = Integer.MAX_VALUE/10 - 9;
+    private static final int MAX_DIGITS = 9;
+
+    private final InputStream in;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int pos;
+    private int limit;
+    private int line = 1;
+    private int lineStart; //Bytes read before the current line, for columns
+    private int consumed;  //Bytes read before the buffer
+
+    MapTokenizer(InputStream in) {
+        this.in = in;
+    }
+
+    /**
+     * Reads the whole map: the number of rows and of columns on the first
+     * two lines, then one line of tile numbers per row. Tiles are separated
+     * by spaces or tabs; blank lines and spaces at the end of a line are
+     * ignored.
+     *
+     * @return
+     *          int[row][col] of tile numbers
+     * @throws MapFormatException
+     *          If the map isn't laid out like this
+     * @throws IOException
+     *          If the stream can't be read
+     */
+    int[][] readMap() throws IOException {
+        int rows = readNumber("the number of rows");
+        endLine("the number of rows");
+        int cols = readNumber("the number of columns");
+        endLine("the number of columns");
+        if (rows == 0 || cols == 0) {
+            throw error("the map is " + rows + "x" + cols + " tiles");
+        }
+
+        int[][] mapTiles = new int[rows][cols];
+        for (int row = 0; row < rows; row++) {
+            skipBlankLines();
+            if (peek() == EOF) {
+                throw error("expected " + rows + " rows of tiles but found " + row);
+            }
+            readRow(mapTiles[row], row);
+        }
+        skipBlankLines();
+        if (peek() != EOF) {
+            throw error("expected " + rows + " rows of tiles but found more");
+        }
+        return mapTiles;
+    }
+
+    private void readRow(int[] tiles, int row) throws IOException {
+        int cols = tiles.length;
+        byte[] buf = buffer;
+        for (int col = 0; col < cols; col++) {
+            //Fast path for a tile and the space after it that are both in
+            //the buffer, which is almost all of them
+            int p = pos;
+            int last = limit - 1;
+            if (p < last) {
+                int b = buf[p];
+                while (b == ' ' && p < last) {
+                    b = buf[++p];
+                }
+                if (b >= '0' && b <= '9' && p < last) {
+                    int value = b - '0';
+                    int end = p + MAX_DIGITS;
+                    b = buf[++p];
+                    while (b >= '0' && b <= '9' && p < last && p < end) {
+                        value = value*10 + (b - '0');
+                        b = buf[++p];
+                    }
+                    if (b == ' ' || isLineEnd(b)) {
+                        tiles[col] = value;
+                        pos = p;
+                        continue;
+                    }
+                }
+                //Anything else is read again the slow way, which explains
+                //what's wrong
+            }
+
+            skipSpaces();
+            int b = peek();
+            if (isLineEnd(b) || b == EOF) {
+                throw error("row " + row + " has " + col + " tiles, expected " + cols);
+            }
+            tiles[col] = readNumber("a tile number");
+        }
+        skipSpaces();
+        int b = peek();
+        if (isDigit(b)) {
+            throw error("row " + row + " has more than " + cols + " tiles");
+        }
+        endLine("row " + row);
+    }
+
+    /**
+     * Reads a number at the current position.
+     *
+     * @param what
+     *          What the number is, for errors
+     */
+    private int readNumber(String what) throws IOException {
+        int b = peek();
+        if (!isDigit(b)) {
+            throw error("expected " + what + " but found " + describe(b));
+        }
+        int value = 0;
+        do {
+            if (value > MAX_NUMBER) {
+                throw error(what + " is too big");
+            }
+            value = value*10 + (b - '0');
+            pos++;
+            b = peek();
+        } while (isDigit(b));
+        if (b != EOF && !isSpace(b) && !isLineEnd(b)) {
+            throw error("expected " + what + " but found " + describe(b));
+        }
+        return value;
+    }
+
+    /**
+     * Skips spaces and then the end of the line.
+     *
+     * @param after
+     *          What was read on the line, for errors
+     */
+    private void endLine(String after) throws IOException {
+        skipSpaces();
+        int b = peek();
+        if (isLineEnd(b)) {
+            newLine();
+        } else if (b != EOF) {
+            throw error("expected the end of the line after " + after + " but found "
+                    + describe(b));
+        }
+    }
+
+    private void skipSpaces() throws IOException {
+        int b = peek();
+        while (isSpace(b)) {
+            pos++;
+            b = peek();
+        }
+    }
+
+    private void skipBlankLines() throws IOException {
+        skipSpaces();
+        while (isLineEnd(peek())) {
+            newLine();
+            skipSpaces();
+        }
+    }
+
+    /**
+     * Moves past the line end at the current position, which peek() has
+     * found. A \r followed by \n is one line end.
+     */
+    private void newLine() throws IOException {
+        boolean cr = buffer[pos] == '\r';
+        pos++;
+        if (cr && peek() == '\n') {
+            pos++;
+        }
+        line++;
+        lineStart = consumed + pos;
+    }
+
+    /**
+     * Gets the byte at the current position without moving past it,
+     * reading more of the stream if the buffer has all been used.
+     */
+    private int peek() throws IOException {
+        if (pos < limit) {
+            return buffer[pos] & 0xFF;
+        }
+        if (limit == EOF) {
+            return EOF;
+        }
+        consumed += limit;
+        pos = 0;
+        limit = in.read(buffer);
+        while (limit == 0) {
+            limit = in.read(buffer);
+        }
+        return limit == EOF ? EOF : buffer[0] & 0xFF;
+    }
+
+    private MapFormatException error(String message) {
+        int position = consumed + Math.max(pos, 0);
+        return new MapFormatException(line, position - lineStart + 1, message);
+    }
+
+    private static boolean isDigit(int b) {
+        return b >= '0' && b <= '9';
+    }
+
+    private static boolean isSpace(int b) {
+        return b == ' ' || b == '\t';
+    }
+
+    private static boolean isLineEnd(int b) {
+        return b == '\n' || b == '\r';
+    }
+
+    private static String describe(int b) {
+        if (b == EOF) {
+            return "the end of the file";
+        } else if (isLineEnd(b)) {
+            return "the end of the line";
+        } else if (b > ' ' && b < 0x7F) {
+            return "'" + (char) b + "'";
+        }
+        return String.format("byte 0x%02X", b);
+    }
+}
@@ -0,0 +1,101 @@
+package simulation;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Updates a level's enemies on a ForkJoinPool. The enemies are split into
+ * partitions of consecutive indices, and each partition is updated by one
+ * task. An enemy's update only changes that enemy, so the partitions don't
+ * share anything except their sounds, which each partition queues up and
+ * which are played in partition order once every partition is done. The
+ * result is exactly the same as updating the enemies one by one.
+ *
+ * Levels with few enemies, or pools with a single thread, are updated on
+ * the calling thread, since splitting them up would cost more than it saves.
+ *
+ * @author dPow
+ */
+public class ParallelEnemyUpdater {
+    //Fewest enemies worth giving to a task of their own
+    public static final int MIN_PARTITION_SIZE = 512;
+
+    private final ForkJoinPool pool;
+    private final int maxPartitions;
+    private final SoundQueue[] queues;
+
+    /**
+     * Creates an updater that runs on the given pool.
+     *
+     * @param pool
+     *          Pool to run the partitions on
+     */
+    public ParallelEnemyUpdater(ForkJoinPool pool) {
+        this.pool = pool;
+        //A few partitions per thread so one slow partition doesn't hold up the tick
+        this.maxPartitions = pool.getParallelism()*4;
+        this.queues = new SoundQueue[maxPartitions];
+        for (int i = 0; i < maxPartitions; i++) {
+            queues[i] = new SoundQueue();
+        }
+    }
+
+    /**
+     * Runs one tick of every enemy.
+     *
+     * @param world
+     *          World the enemies belong to, which plays their sounds
+     * @param enemies
+     *          Enemies to update
+     */
+    public void update(World world, EnemyGroup enemies) {
+        int size = enemies.size();
+        int partitions = Math.min(maxPartitions, size / MIN_PARTITION_SIZE);
+        if (partitions <= 1 || pool.getParallelism() == 1) {
+            enemies.update(0, size, null);
+            return;
+        }
+        pool.invoke(new Partitions(enemies, queues, size, partitions, 0, partitions));
+        //Merge in the order the enemies would have been updated serially
+        for (int p = 0; p < partitions; p++) {
+            queues[p].playAll(world);
+        }
+    }
+
+    /**
+     * Updates partitions [first, last), splitting in half until there's
+     * only one partition left.
+     */
+    private static final class Partitions extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final EnemyGroup enemies;
+        private final SoundQueue[] queues; //One per partition
+        private final int size;
+        private final int partitions;
+        private final int first;
+        private final int last;
+
+        Partitions(EnemyGroup enemies, SoundQueue[] queues, int size, int partitions,
+                int first, int last) {
+            this.enemies = enemies;
+            this.queues = queues;
+            this.size = size;
+            this.partitions = partitions;
+            this.first = first;
+            this.last = last;
+        }
+
+        @Override
+        protected void compute() {
+            if (last - first == 1) {
+                int from = (int) ((long) size*first / partitions);
+                int to = (int) ((long) size*(first + 1) / partitions);
+                enemies.update(from, to, queues[first]);
+            } else {
+                int middle = (first + last) >>> 1;
+                invokeAll(new Partitions(enemies, queues, size, partitions, first, middle),
+                        new Partitions(enemies, queues, size, partitions, middle, last));
+            }
+        }
+    }
+}
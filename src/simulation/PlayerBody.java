@@ -0,0 +1,474 @@
+package simulation;
+
+import java.util.Iterator;
+import simulation.TickProfiler.Phase;
+
+/**
+ * Game logic of the player's dragon: moving, jumping, gliding, attacks,
+ * fire energy and scrolling the camera. World calls the press/release
+ * methods with the inputs from its InputQueue at the start of each tick.
+ *
+ * @author dPow
+ */
+public class PlayerBody extends Body {
+    //How many sprites each action's animation has
+    public static final int[] FRAME_COUNTS = {2, 8, 1, 2, 4, 2, 5};
+
+    private final double origWidth; //Used to revert to normal after done scratching
+    boolean inCenter; //Decide whether or not to move map
+    int scratchDamage;
+    int fireDamage;
+    int maxFireEnergy; //Maximum fire energy possible
+    int fireEnergy; //How much energy the dragon has to use for shooting fireballs
+    int fireCost; //how much each fireball costs
+    int fireEnergyDelayCounter; //cycler; when this equals fireEnergyDelay, fireEnergy++
+    int fireEnergyDelay; //determines length of time for the fire regeneration delay
+    String flinchDirection; //Which way the player faced when hurt
+
+    /**
+     * Sets initial values for speed, health, damage, etc.
+     *
+     * @param world
+     *          World the player lives in
+     * @param startX
+     *          Starting X-coordinate
+     * @param startY
+     *          Starting Y-coordinate
+     */
+    public PlayerBody(World world, double startX, double startY) {
+        super(world);
+        currentAction = IDLE;
+        setPosition(startX, startY);
+        width = height = origWidth = World.PLAYER_SIZE;
+        direction = "Right";
+        moving = false; //To counter the default moving = true from Body
+        moveSpeed = 2;
+        fireSpeed = 4;
+        health = maxHealth = 50;
+        scratchDamage = 10;
+        fireDamage = 5;
+        fireEnergy = maxFireEnergy = 5;
+        fireCost = 1;
+        fireEnergyDelay = 10;
+        showSprite(SPRITE_NORMAL, IDLE, 0);
+    }
+
+    /**
+     * A single call to this method will check if the
+     * player collides with an enemy/wall, allow the
+     * player to jump, and allow the player to move.
+     */
+    @Override
+    public void update() {
+        if (alive){
+            TickProfiler profiler = world.getProfiler();
+            long time = profiler != null ? System.nanoTime() : 0;
+            checkMapCollision();
+            if (profiler != null) {
+                time = profiler.lap(Phase.PLAYER_MAP_COLLISION, time);
+            }
+            checkWin();
+            if (profiler != null) {
+                time = profiler.lap(Phase.PLAYER_WIN, time);
+            }
+            checkEnemyCollision();
+            if (profiler != null) {
+                time = profiler.lap(Phase.PLAYER_ENEMY_COLLISION, time);
+            }
+            checkMapLocation();
+            if (profiler != null) {
+                time = profiler.lap(Phase.PLAYER_MAP_LOCATION, time);
+            }
+            move();
+            jump();
+            if (profiler != null) {
+                time = profiler.lap(Phase.PLAYER_MOVE, time);
+            }
+            updateAnimation();
+            if (profiler != null) {
+                time = profiler.lap(Phase.PLAYER_ANIMATION, time);
+            }
+            updateFireballs();
+            if (profiler != null) {
+                profiler.lap(Phase.FIREBALLS, time);
+            }
+            checkDeath();
+        }
+        else{
+            die();
+        }
+    }
+
+    /**
+     * The player has more options for moving than normal bodies
+     * do, so the Body.move() method is overridden here.
+     * This also moves the camera along with the Player if the Player
+     * is in the center of the screen, so the Player stays centered.
+     */
+    @Override
+    public void move() {
+        if (moving && !attacking){
+            if (!attacking) {
+                currentAction = WALKING;
+            }
+            switch(direction){
+                case "Left":
+                    //If the player isn't in the center of the screen
+                    if (!inCenter){
+                        if (getScreenX() > 0 && !hitLeft){
+                            x -= moveSpeed;
+                            //Reset if the player hit the right wall
+                            if (hitRight){
+                                hitRight = topRight = midRight = false;
+                            }
+                        }
+                    }
+                    //If the player is in the center, move screen with the player
+                    else if(inCenter){
+                        if (hitRight){
+                            hitRight = topRight = midRight = false;
+                        }
+                        x -= moveSpeed;
+                        world.moveMap(direction, moveSpeed);
+                    }
+                    break;
+
+                case "Right":
+                    if (!inCenter){
+                        if (getScreenX() < world.getWidth() - width && !hitRight){
+                            x += moveSpeed;
+                            if (hitLeft){
+                                hitLeft = topLeft = midLeft = false;
+                            }
+                        }
+                    }
+                    //If the player is in the center, move screen with the player
+                    else if(inCenter){
+                        if (hitLeft){
+                            hitLeft = topLeft = midLeft = false;
+                        }
+                        x += moveSpeed;
+                        world.moveMap(direction, moveSpeed);
+                    }
+                    break;
+            }
+        }
+        else{//if not moving
+            if (!attacking) {
+                currentAction = IDLE;
+            }
+        }
+    }
+
+    /**
+     * Starts walking left.
+     */
+    public void pressLeft() {
+        if (!attacking){
+            direction = "Left";
+            moving = true;
+        }
+    }
+
+    /**
+     * Starts walking right.
+     */
+    public void pressRight() {
+        if (!attacking){
+            direction = "Right";
+            moving = true;
+        }
+    }
+
+    /**
+     * Stops walking.
+     */
+    public void releaseMove() {
+        moving = false;
+    }
+
+    /**
+     * Jumps, or glides if the jump is already over.
+     */
+    public void pressJump() {
+        jumping = true;
+        gliding = true;
+        justJumped = true;
+    }
+
+    /**
+     * Stops jumping and gliding.
+     */
+    public void releaseJump() {
+        jumping = false;
+        gliding = false;
+        justJumped = false;
+    }
+
+    /**
+     * Starts a scratch attack unless the player is already attacking.
+     */
+    public void pressScratch() {
+        if (!attacking){
+            scratch();
+            justScratched = true;
+        }
+    }
+
+    /**
+     * Shoots a fireball unless the player is already attacking.
+     */
+    public void pressFire() {
+        if (!attacking){
+            fire();
+        }
+    }
+
+    /**
+     * Scratch attack.
+     */
+    public void scratch() {
+        if (!justScratched){
+            attacking = true;
+            scratching = true;
+            currentAction = SCRATCHING;
+            animationCycler = 0;
+            if (animationCycler == 0) {
+                //Only play scratch at the beginning of the attack
+                world.playSound(Sound.SCRATCH);
+            }
+        }
+    }
+
+    /**
+     * Fireball attack; shoots new fireball.
+     * Resets fireEnergyDelayCounter so that the player has
+     * to wait longer before firing again.
+     */
+    public void fire() {
+        if (!justFired && fireEnergy >= fireCost){
+            attacking = true;
+            firing = true;
+            justFired = true;
+            fireEnergy -= fireCost;
+            fireEnergyDelayCounter = 0;
+            currentAction = FIRING;
+            animationCycler = 0;
+            timeToUpdateCycler = UPDATE_TIME - 1;
+            updateAnimation(); //Force player sprite to change so that it syncs
+                               //with the formation of the fireball
+            animationCycler = 0;
+            world.addFireball(new FireballBody(world, this, direction, fireSpeed));
+            world.playSound(Sound.FIREBALL);
+        }
+    }
+
+    /**
+     * Moves fireballs and deletes them if the fireballs have dissipated
+     * (dissipated = hit an object and run through the dissipation sprites).
+     */
+    public void updateFireballs() {
+        Iterator<FireballBody> iterator = world.getFireballs().iterator();
+        while (iterator.hasNext()){
+            FireballBody fireball = iterator.next();
+            fireball.update();
+            if (fireball.isRemoved()){
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Checks if the Player has collided with any enemies.
+     */
+    public void checkEnemyCollision() {
+        EnemyGroup enemies = world.getEnemyGroup();
+        int candidates = queryNearbyEnemies();
+        if (!attacking && !flinching) {
+            for (int i = 0; i < candidates; i++) {
+                int enemy = getNearbyEnemy(i);
+                if (enemies.touches(enemy, this) && enemies.isAlive(enemy)){
+                    health -= enemies.getDamage(enemy);
+                    flinchDirection = direction;
+                    flinching = true;
+                }
+            }
+        }
+        else if (attacking){
+            for (int i = 0; i < candidates; i++) {
+                int enemy = getNearbyEnemy(i);
+                if (scratching && !enemies.isJustHurt(enemy)){ //Prevents one attack from
+                                                               //doing multiple hits
+                    if (enemies.touches(enemy, this)){
+                        enemies.scratch(enemy, scratchDamage);
+                    }
+                }
+                //Fireball collisions are taken care of in FireballBody class
+            }
+        }
+    }
+
+    /**
+     * Checks if the player is in the center of the map and updates inCenter.
+     * If it is, then move the map rather than the player.
+     */
+    public void checkMapLocation() {
+        double centerAreaWidth = width/4;
+        double centerAreaX = world.getWidth()/2 - centerAreaWidth;
+
+        if (direction.equals("Left") && !hitLeft &&   //Check if player should move
+                world.getCameraX() < 0){              //Check if map is in bounds
+            //If player is within the "move map" region defined above
+            if (getScreenX() >= centerAreaX && getScreenX() <= centerAreaX + centerAreaWidth){
+                inCenter = true;
+            }
+        }
+
+        //world.getWidth = width of the screen
+        //getCameraX = screen location of the map's X-coordinate (very left)
+        //getMapWidth = total width of the map tiles
+        else if (direction.equals("Right") && !hitRight &&
+                world.getCameraX() > world.getWidth() - world.getMapWidth()){
+            if (getScreenX() >= centerAreaX && getScreenX() <= centerAreaX + centerAreaWidth){
+                inCenter = true;
+            }
+        }
+
+        else{
+            inCenter = false;
+        }
+
+    }
+
+    /**
+     * Checks if the player won the level, and tells the world if true.
+     */
+    public void checkWin() {
+        TileIndex index = world.getTileIndex();
+        int lastRow = index.lastRow(y, height);
+        int lastCol = index.lastColumn(x, width);
+        //Only the tiles the player is touching need to be checked
+        for (int row = index.firstRow(y); row <= lastRow; row++) {
+            for (int col = index.firstColumn(x); col <= lastCol; col++) {
+                //If player touches the winning tile
+                if (World.WINNING_TILES.contains(index.getTile(row, col))) {
+                    world.win();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Player includes actions other than moving and flinching,
+     * so Body.updateAnimation() is overridden here to include firing,
+     * scratching, and gliding.
+     *
+     * This also updates the dragon's fireEnergy.
+     */
+    @Override
+    public void updateAnimation() {
+        timeToUpdateCycler++;
+        if (timeToUpdateCycler == UPDATE_TIME ||
+                //Make scratching animation play faster for aesthetic purposes
+                (scratching && timeToUpdateCycler == UPDATE_TIME*0.6)){
+            if (!flinching){
+                //currentAction will equal one of the action enums
+                if (animationCycler >= FRAME_COUNTS[currentAction]){
+                    animationCycler = 0;
+                    //The attacking sequence should only play through once
+                    if (attacking){
+                        attacking = false;
+                    }
+                    if (scratching){
+                        scratching = false;
+                        currentAction = IDLE;
+                        if (direction.equals("Left")) {
+                            x += origWidth;
+                        }
+                        width = origWidth;
+                        justScratched = false;
+                    }
+                    if (firing){
+                        firing = false;
+                        currentAction = IDLE;
+                        justFired = false;
+                    }
+                }
+
+                //Since the scratch image width is twice that of the normal sprite
+                if (attacking && scratching){
+                    //To compensate for the extra width, the character is moved
+                    //only if facing left
+                    if (direction.equals("Left") && animationCycler == 0) {
+                        x -= origWidth;
+                    }
+                    width = origWidth*2;
+                }
+
+                //Increase the fireEnergy
+                if (fireEnergy < maxFireEnergy){
+                    fireEnergyDelayCounter++;
+                    if (fireEnergyDelayCounter == fireEnergyDelay) {
+                        fireEnergy++;
+                        fireEnergyDelayCounter = 0;
+                    }
+                }
+
+                showSprite(SPRITE_NORMAL, currentAction, animationCycler);
+                animationCycler++;
+            }
+            else if (flinching){
+                if (!playedFlinchTone) {
+                    playSound(getFlinchSound());
+                    playedFlinchTone = true;
+                }
+                if (flinchCycler == 1 || flinchCycler == 3){
+                    showSprite(SPRITE_FLINCH, FIRING, 0);
+                    spriteDirection = flinchDirection;
+                }
+                else if (flinchCycler == 0 || flinchCycler == 2){
+                    showSprite(SPRITE_BLANK, 0, 0);
+                }
+                flinchCycler++;
+                if (flinchCycler == 4){
+                    flinchCycler = 0;
+                    flinching = false;
+                    playedFlinchTone = false;
+                }
+            }
+            timeToUpdateCycler = 0;
+        }
+    }
+
+    /**
+     * Once the death animation is over, the level is reset.
+     */
+    @Override
+    protected void onRemoved() {
+        world.playerDied();
+    }
+
+    @Override
+    protected Sound getDeathSound() {
+        return Sound.GROWL;
+    }
+
+    @Override
+    protected Sound getFlinchSound() {
+        return Sound.DRAGON_GRUNT;
+    }
+
+    @Override
+    protected int[] getFrameCounts() {
+        return FRAME_COUNTS;
+    }
+
+    public int getFireEnergy() {
+        return fireEnergy;
+    }
+
+    public int getMaxFireEnergy() {
+        return maxFireEnergy;
+    }
+}
@@ -0,0 +1,106 @@
+package simulation;
+
+import java.io.BufferedInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Paths;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Plays input recordings without a window, as fast as the CPU allows, and
+ * reports each run's ticks per second and whether it ended in the same
+ * state as when it was recorded.
+ *
+ * Usage: {@code ReplayRunner [--packed] [--parallel] [--runs N] recording...}
+ * <ul>
+ * <li>--packed: keep the snails in a SnailStore</li>
+ * <li>--parallel: update the enemies on the common ForkJoinPool</li>
+ * <li>--runs N: play each recording N times (default 1), e.g. to let the
+ * JIT warm up before the last run</li>
+ * </ul>
+ * Exits with status 1 if any replay ended in a different state, so it can
+ * be used to check that a change didn't change the game's behavior.
+ *
+ * @author dPow
+ */
+public class ReplayRunner {
+
+    private ReplayRunner() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        boolean packed = false;
+        boolean parallel = false;
+        int runs = 1;
+        int first = 0;
+        while (first < args.length && args[first].startsWith("--")) {
+            switch (args[first]) {
+                case "--packed":
+                    packed = true;
+                    break;
+                case "--parallel":
+                    parallel = true;
+                    break;
+                case "--runs":
+                    runs = Integer.parseInt(args[++first]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + args[first]);
+            }
+            first++;
+        }
+        if (first == args.length) {
+            System.err.println("Usage: ReplayRunner [--packed] [--parallel] [--runs N] recording...");
+            System.exit(2);
+        }
+
+        boolean allMatched = true;
+        for (int i = first; i < args.length; i++) {
+            InputRecording recording;
+            try (InputStream in = new BufferedInputStream(new FileInputStream(args[i]))) {
+                recording = InputRecording.read(in);
+            }
+            for (int run = 1; run <= runs; run++) {
+                World world = recording.createWorld(openMap(recording.getLevelId()), packed);
+                if (parallel) {
+                    world.setEnemyUpdater(new ParallelEnemyUpdater(ForkJoinPool.commonPool()));
+                }
+                long start = System.nanoTime();
+                recording.replay(world);
+                long time = System.nanoTime() - start;
+                long hash = world.getStateHash();
+                boolean matched = world.getTicks() == recording.getTicks()
+                        && hash == recording.getStateHash();
+                allMatched &= matched;
+                System.out.printf("%s run %d: %s, %d ticks, %d inputs, hash %016x (%s), %.0f ticks/s%n",
+                        args[i], run, recording.getLevelId(), world.getTicks(),
+                        recording.getInputCount(), hash,
+                        matched ? "matches" : "expected " + Long.toHexString(recording.getStateHash())
+                                + " after " + recording.getTicks() + " ticks",
+                        world.getTicks() / (time / 1e9));
+            }
+        }
+        System.exit(allMatched ? 0 : 1);
+    }
+
+    /**
+     * Opens a level's map from the classpath, or from a file if it isn't a
+     * resource.
+     *
+     * @param levelId
+     *          Resource path of the .map file
+     * @return
+     *          The map, streamed from its binary form if it has one
+     * @throws IOException
+     *          If the map can't be found or read
+     */
+    private static ChunkSource openMap(String levelId) throws IOException {
+        try (InputStream in = MapLoader.openResource(levelId)) {
+            if (in == null) {
+                return MapLoader.openChunks(Paths.get(levelId));
+            }
+        }
+        return MapLoader.openChunks(levelId);
+    }
+}
@@ -0,0 +1,48 @@
+package simulation;
+
+/**
+ * Game logic of the snail enemy. It walks back and forth, turning around
+ * whenever it runs into a wall.
+ *
+ * @author dPow
+ */
+public class SnailBody extends Body {
+    //Snails have no idle sprites; every other action shows them crawling
+    public static final int[] FRAME_COUNTS = {0, 3, 3, 3};
+
+    /**
+     * Sets health and damage for snail enemies.
+     *
+     * @param world
+     *          World the snail lives in
+     * @param x
+     *          Starting X-coordinate
+     * @param y
+     *          Starting Y-coordinate
+     */
+    public SnailBody(World world, double x, double y) {
+        super(world);
+        setPosition(x, y);
+        width = height = World.ENEMY_SIZE;
+        direction = "Right";
+        health = 10;
+        moveSpeed = 1;
+        enemyDamage = 5;
+        showSprite(SPRITE_NORMAL, currentAction, 0);
+    }
+
+    @Override
+    protected Sound getDeathSound() {
+        return Sound.DEATH;
+    }
+
+    @Override
+    protected Sound getFlinchSound() {
+        return Sound.INSECT_GRUNT;
+    }
+
+    @Override
+    protected int[] getFrameCounts() {
+        return FRAME_COUNTS;
+    }
+}
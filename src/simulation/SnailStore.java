@@ -0,0 +1,446 @@
+package simulation;
+
+import java.util.Arrays;
+
+/**
+ * Snail enemies stored as parallel arrays instead of one SnailBody each.
+ * Every snail is an index into the arrays, its boolean state is packed
+ * into one int of flags, and a tick updates all of them in a single loop
+ * over primitives. This keeps levels with many thousands of snails small
+ * and fast; the behaviour is the same as SnailBody's.
+ *
+ * @author dPow
+ */
+public class SnailStore implements EnemyGroup {
+    //Flags
+    private static final int FACING_LEFT = 1;
+    private static final int MOVING = 1 << 1;
+    private static final int ALIVE = 1 << 2;
+    private static final int FLINCHING = 1 << 3;
+    private static final int JUST_HURT = 1 << 4;
+    private static final int ON_GROUND = 1 << 5;
+    private static final int HIT_LEFT = 1 << 6;
+    private static final int HIT_RIGHT = 1 << 7;
+    private static final int PLAYED_DEATH_TONE = 1 << 8;
+    private static final int PLAYED_FLINCH_TONE = 1 << 9;
+    private static final int REMOVED = 1 << 10;
+
+    //Same as SnailBody
+    private static final double SIZE = World.ENEMY_SIZE;
+    private static final int MOVE_SPEED = 1;
+    private static final int FALL_SPEED = 3;
+    private static final int START_HEALTH = 10;
+    private static final int DAMAGE = 5;
+
+    private final World world;
+    private int count;
+    private double[] x;
+    private double[] y;
+    private double[] previousX;
+    private double[] previousY;
+    private int[] health;
+    private int[] flags;
+    private int[] action;
+    private int[] animationCycler;
+    private int[] timeToUpdateCycler;
+    private int[] flinchCycler;
+    private int[] deathCounter;
+    private int[] sprite; //mode << 16 | action << 8 | frame
+    private int[] spawnMarker;
+
+    /**
+     * Creates an empty store.
+     *
+     * @param world
+     *          World the snails live in
+     * @param capacity
+     *          Number of snails to make room for; it grows if needed
+     */
+    public SnailStore(World world, int capacity) {
+        this.world = world;
+        capacity = Math.max(capacity, 1);
+        x = new double[capacity];
+        y = new double[capacity];
+        previousX = new double[capacity];
+        previousY = new double[capacity];
+        health = new int[capacity];
+        flags = new int[capacity];
+        action = new int[capacity];
+        animationCycler = new int[capacity];
+        timeToUpdateCycler = new int[capacity];
+        flinchCycler = new int[capacity];
+        deathCounter = new int[capacity];
+        sprite = new int[capacity];
+        spawnMarker = new int[capacity];
+    }
+
+    /**
+     * Adds a snail walking right.
+     *
+     * @param startX
+     *          Starting X-coordinate
+     * @param startY
+     *          Starting Y-coordinate
+     */
+    public void add(double startX, double startY) {
+        add(startX, startY, -1);
+    }
+
+    /**
+     * Adds a snail walking right that was spawned from the map.
+     *
+     * @param startX
+     *          Starting X-coordinate
+     * @param startY
+     *          Starting Y-coordinate
+     * @param marker
+     *          Spawn marker the snail came from (see World)
+     */
+    public void add(double startX, double startY, int marker) {
+        if (count == x.length) {
+            grow(count*2);
+        }
+        int i = count++;
+        x[i] = previousX[i] = startX;
+        y[i] = previousY[i] = startY;
+        health[i] = START_HEALTH;
+        flags[i] = MOVING | ALIVE;
+        action[i] = Body.WALKING;
+        animationCycler[i] = timeToUpdateCycler[i] = flinchCycler[i] = deathCounter[i] = 0;
+        sprite[i] = packSprite(Body.SPRITE_NORMAL, Body.WALKING, 0);
+        spawnMarker[i] = marker;
+    }
+
+    private void grow(int capacity) {
+        x = Arrays.copyOf(x, capacity);
+        y = Arrays.copyOf(y, capacity);
+        previousX = Arrays.copyOf(previousX, capacity);
+        previousY = Arrays.copyOf(previousY, capacity);
+        health = Arrays.copyOf(health, capacity);
+        flags = Arrays.copyOf(flags, capacity);
+        action = Arrays.copyOf(action, capacity);
+        animationCycler = Arrays.copyOf(animationCycler, capacity);
+        timeToUpdateCycler = Arrays.copyOf(timeToUpdateCycler, capacity);
+        flinchCycler = Arrays.copyOf(flinchCycler, capacity);
+        deathCounter = Arrays.copyOf(deathCounter, capacity);
+        sprite = Arrays.copyOf(sprite, capacity);
+        spawnMarker = Arrays.copyOf(spawnMarker, capacity);
+    }
+
+    @Override
+    public int size() {
+        return count;
+    }
+
+    @Override
+    public void savePositions() {
+        System.arraycopy(x, 0, previousX, 0, count);
+        System.arraycopy(y, 0, previousY, 0, count);
+    }
+
+    @Override
+    public void insertInto(SpatialHash hash) {
+        for (int i = 0; i < count; i++) {
+            hash.insert(i, x[i], y[i], SIZE, SIZE);
+        }
+    }
+
+    /**
+     * Runs one tick of a range of snails: map collision, walking, falling,
+     * animation and death, in the same order as Body.update().
+     */
+    @Override
+    public void update(int from, int to, SoundQueue sounds) {
+        TileIndex index = world.getTileIndex();
+        double worldHeight = world.getHeight();
+        for (int i = from; i < to; i++) {
+            int f = flags[i];
+            if ((f & ALIVE) != 0) {
+                f = checkMapCollision(i, f, index);
+                f = move(i, f);
+                f = updateAnimation(i, f, sounds);
+                //checkDeath()
+                if (health[i] <= 0) {
+                    f &= ~ALIVE;
+                    animationCycler[i] = timeToUpdateCycler[i] = 0;
+                } else if (y[i] + SIZE >= worldHeight) {
+                    health[i] = 0;
+                }
+            } else {
+                f = die(i, f, sounds);
+            }
+            flags[i] = f;
+        }
+    }
+
+    /**
+     * Same as Body.checkMapCollision() and Body.updateCollisions(),
+     * without the top of the snail since snails don't jump.
+     */
+    private int checkMapCollision(int i, int f, TileIndex index) {
+        double left = x[i];
+        double top = y[i];
+        double right = left + SIZE;
+        double bottom = top + SIZE;
+        double centerX = left + SIZE / 2;
+        double centerY = top + SIZE / 2;
+        boolean topLeft = false, topRight = false, midLeft = false, midRight = false,
+                bottomLeft = false, bottomRight = false, bottomMiddle = false;
+
+        int lastRow = index.lastRow(top, SIZE);
+        int lastCol = index.lastColumn(left, SIZE);
+        for (int row = index.firstRow(top); row <= lastRow; row++) {
+            double tileY = index.getTileCenterY(row);
+            double dTop = (top - tileY)*(top - tileY);
+            double dBottom = (bottom - tileY)*(bottom - tileY);
+            double dMiddleY = (centerY - tileY)*(centerY - tileY);
+            for (int col = index.firstColumn(left); col <= lastCol; col++) {
+                if (!index.isSolid(row, col)) {
+                    continue;
+                }
+                double tileX = index.getTileCenterX(col);
+                double dLeft = (left - tileX)*(left - tileX);
+                double dRight = (right - tileX)*(right - tileX);
+                double dMiddleX = (centerX - tileX)*(centerX - tileX);
+                topLeft |= dLeft + dTop < Body.COLLISION_DISTANCE_SQUARED;
+                topRight |= dRight + dTop < Body.COLLISION_DISTANCE_SQUARED;
+                midRight |= dRight + dMiddleY < Body.COLLISION_DISTANCE_SQUARED;
+                midLeft |= dLeft + dMiddleY < Body.COLLISION_DISTANCE_SQUARED;
+                bottomMiddle |= dMiddleX + dBottom < Body.COLLISION_DISTANCE_SQUARED;
+                bottomLeft |= dLeft + dBottom < Body.COLLISION_DISTANCE_SQUARED;
+                bottomRight |= dRight + dBottom < Body.COLLISION_DISTANCE_SQUARED;
+            }
+        }
+
+        f &= ~(ON_GROUND | HIT_LEFT | HIT_RIGHT);
+        boolean hitLeft = topLeft || midLeft || (!bottomMiddle && bottomLeft);
+        boolean hitRight = topRight || midRight || (!bottomMiddle && bottomRight);
+        boolean facingLeft = (f & FACING_LEFT) != 0;
+        if (hitLeft) {
+            f |= HIT_LEFT;
+        }
+        if (hitRight) {
+            f |= HIT_RIGHT;
+        }
+        if ((bottomLeft || bottomRight || bottomMiddle) &&
+                !(facingLeft && bottomLeft && hitLeft && !bottomMiddle) &&
+                !(!facingLeft && bottomRight && hitRight && !bottomMiddle)) {
+            f |= ON_GROUND;
+        }
+        return f;
+    }
+
+    /**
+     * Same as Body.move() followed by Body.fall().
+     */
+    private int move(int i, int f) {
+        if ((f & MOVING) != 0) {
+            action[i] = Body.WALKING;
+            if ((f & FACING_LEFT) != 0) {
+                if ((f & HIT_LEFT) == 0) {
+                    x[i] -= MOVE_SPEED;
+                    f &= ~HIT_RIGHT;
+                } else {
+                    f &= ~FACING_LEFT;
+                }
+            } else {
+                if ((f & HIT_RIGHT) == 0) {
+                    x[i] += MOVE_SPEED;
+                    f &= ~HIT_LEFT;
+                } else {
+                    f |= FACING_LEFT;
+                }
+            }
+        } else {
+            action[i] = Body.IDLE;
+        }
+        if ((f & ON_GROUND) == 0) {
+            y[i] += FALL_SPEED;
+            action[i] = Body.FALLING;
+        }
+        return f;
+    }
+
+    /**
+     * Same as Body.updateAnimation().
+     */
+    private int updateAnimation(int i, int f, SoundQueue sounds) {
+        if (++timeToUpdateCycler[i] != Body.UPDATE_TIME) {
+            return f;
+        }
+        timeToUpdateCycler[i] = 0;
+        if ((f & FLINCHING) == 0) {
+            sprite[i] = packSprite(Body.SPRITE_NORMAL, action[i], animationCycler[i]);
+            animationCycler[i]++;
+            if (animationCycler[i] >= SnailBody.FRAME_COUNTS[action[i]]) {
+                animationCycler[i] = 0;
+            }
+        } else {
+            if ((f & PLAYED_FLINCH_TONE) == 0) {
+                playSound(Sound.INSECT_GRUNT, sounds);
+                f |= PLAYED_FLINCH_TONE;
+            }
+            int cycler = flinchCycler[i];
+            sprite[i] = packSprite(cycler % 2 == 0 ? Body.SPRITE_FLINCH : Body.SPRITE_BLANK, 0, 0);
+            if (++flinchCycler[i] == 4) {
+                flinchCycler[i] = 0;
+                f &= ~(FLINCHING | JUST_HURT | PLAYED_FLINCH_TONE);
+                f |= MOVING;
+            }
+        }
+        return f;
+    }
+
+    /**
+     * Same as Body.die().
+     */
+    private int die(int i, int f, SoundQueue sounds) {
+        if ((f & PLAYED_DEATH_TONE) == 0) {
+            playSound(Sound.DEATH, sounds);
+            f |= PLAYED_DEATH_TONE;
+        }
+        if (++timeToUpdateCycler[i] == Body.UPDATE_TIME) {
+            sprite[i] = packSprite(Body.SPRITE_DEATH, 0, animationCycler[i]);
+            animationCycler[i]++;
+            timeToUpdateCycler[i] = 0;
+            if (animationCycler[i] >= Body.DEATH_FRAMES) {
+                animationCycler[i] = 0;
+            }
+            deathCounter[i]++;
+        }
+        if (deathCounter[i] == Body.DEATH_TIME) {
+            f |= REMOVED;
+        }
+        return f;
+    }
+
+    /**
+     * Packs out the removed snails, keeping the others in order.
+     */
+    @Override
+    public void removeDead() {
+        int kept = 0;
+        for (int i = 0; i < count; i++) {
+            if ((flags[i] & REMOVED) != 0) {
+                continue;
+            }
+            if (kept != i) {
+                x[kept] = x[i];
+                y[kept] = y[i];
+                previousX[kept] = previousX[i];
+                previousY[kept] = previousY[i];
+                health[kept] = health[i];
+                flags[kept] = flags[i];
+                action[kept] = action[i];
+                animationCycler[kept] = animationCycler[i];
+                timeToUpdateCycler[kept] = timeToUpdateCycler[i];
+                flinchCycler[kept] = flinchCycler[i];
+                deathCounter[kept] = deathCounter[i];
+                sprite[kept] = sprite[i];
+                spawnMarker[kept] = spawnMarker[i];
+            }
+            kept++;
+        }
+        count = kept;
+    }
+
+    @Override
+    public int getSpawnMarker(int id) {
+        return spawnMarker[id];
+    }
+
+    @Override
+    public void despawn(int id) {
+        flags[id] |= REMOVED;
+    }
+
+    @Override
+    public boolean touches(int id, Body body) {
+        return body.x <= x[id] + SIZE && body.x + body.width >= x[id]
+                && body.y <= y[id] + SIZE && body.y + body.height >= y[id];
+    }
+
+    @Override
+    public boolean isAlive(int id) {
+        return (flags[id] & ALIVE) != 0;
+    }
+
+    @Override
+    public int getDamage(int id) {
+        return DAMAGE;
+    }
+
+    @Override
+    public boolean isJustHurt(int id) {
+        return (flags[id] & JUST_HURT) != 0;
+    }
+
+    @Override
+    public void scratch(int id, int damage) {
+        health[id] -= damage;
+        flags[id] |= JUST_HURT | FLINCHING;
+    }
+
+    @Override
+    public void burn(int id, int damage) {
+        health[id] -= damage;
+        flags[id] = (flags[id] | FLINCHING) & ~MOVING;
+    }
+
+    private void playSound(Sound sound, SoundQueue sounds) {
+        if (sounds != null) {
+            sounds.add(sound);
+        } else {
+            world.playSound(sound);
+        }
+    }
+
+    private static int packSprite(int mode, int action, int frame) {
+        return mode << 16 | action << 8 | frame;
+    }
+
+    @Override
+    public double getX(int i) {
+        return x[i];
+    }
+
+    @Override
+    public double getY(int i) {
+        return y[i];
+    }
+
+    @Override
+    public int getHealth(int i) {
+        return health[i];
+    }
+
+    public double getPreviousX(int i) {
+        return previousX[i];
+    }
+
+    public double getPreviousY(int i) {
+        return previousY[i];
+    }
+
+    public int getSpriteMode(int i) {
+        return sprite[i] >>> 16;
+    }
+
+    public int getSpriteAction(int i) {
+        return (sprite[i] >>> 8) & 0xFF;
+    }
+
+    public int getSpriteFrame(int i) {
+        return sprite[i] & 0xFF;
+    }
+
+    /**
+     * Gets roughly how much memory the snail arrays use.
+     *
+     * @return
+     *          Size of the arrays in bytes
+     */
+    public long getMemoryFootprint() {
+        return (long) x.length*(4*Double.BYTES + 9*Integer.BYTES);
+    }
+}
@@ -0,0 +1,19 @@
+package simulation;
+
+/**
+ * Sounds the simulation asks to be played. The simulation doesn't play
+ * them itself so that it can run without any audio (or JavaFX) available;
+ * GameState maps each one to the SoundEffect with the same name.
+ *
+ * @author dPow
+ */
+public enum Sound {
+    JUMP,
+    FIREBALL,
+    SCRATCH,
+    GROWL,
+    DRAGON_GRUNT,
+    INSECT_GRUNT,
+    DEATH,
+    DISSIPATE;
+}
@@ -0,0 +1,45 @@
+package simulation;
+
+import java.util.Arrays;
+
+/**
+ * Sounds requested while enemies are updated off the game loop's thread.
+ * Each partition of enemies gets its own queue, and the queues are played
+ * in partition order afterwards so the sounds come out in the same order
+ * as when the enemies are updated one after another.
+ *
+ * @author dPow
+ */
+public class SoundQueue {
+    private Sound[] sounds = new Sound[8];
+    private int count;
+
+    public void add(Sound sound) {
+        if (sound == null) {
+            return;
+        }
+        if (count == sounds.length) {
+            sounds = Arrays.copyOf(sounds, count*2);
+        }
+        sounds[count++] = sound;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Passes every queued sound to the world, oldest first, then empties
+     * the queue.
+     *
+     * @param world
+     *          World whose listener plays the sounds
+     */
+    void playAll(World world) {
+        for (int i = 0; i < count; i++) {
+            world.playSound(sounds[i]);
+            sounds[i] = null;
+        }
+        count = 0;
+    }
+}
@@ -0,0 +1,181 @@
+package simulation;
+
+import java.util.Arrays;
+
+/**
+ * Broad-phase for entity-vs-entity collisions. Bounding boxes are
+ * hashed into square cells so that a query only has to look at the
+ * entities sharing a cell with the query box, instead of every entity
+ * in the level. Candidates still need an exact collision check.
+ *
+ * Entities are referred to by an int id (e.g. their index in a Group),
+ * and all storage is reused between rebuilds so that clearing and
+ * refilling the hash every tick doesn't allocate.
+ *
+ * @author dPow
+ */
+public class SpatialHash {
+    private final double cellSize;
+    private int[] buckets; //Head entry of each bucket's chain, -1 if empty
+    private int mask;
+    //Entries: one per (id, cell) pair
+    private int[] entryId;
+    private int[] entryCellX;
+    private int[] entryCellY;
+    private int[] entryNext;
+    private int entryCount;
+    //Used to only report each id once per query
+    private int[] idStamps;
+    private int stamp;
+    //Results of the last query
+    private int[] results;
+    private int resultCount;
+
+    /**
+     * Creates an empty spatial hash.
+     *
+     * @param cellSize
+     *          Width and height of each cell. Works best when it's
+     *          about the size of the largest entity.
+     */
+    public SpatialHash(double cellSize) {
+        this.cellSize = cellSize;
+        buckets = new int[64];
+        mask = buckets.length - 1;
+        Arrays.fill(buckets, -1);
+        entryId = new int[64];
+        entryCellX = new int[64];
+        entryCellY = new int[64];
+        entryNext = new int[64];
+        idStamps = new int[16];
+        results = new int[16];
+    }
+
+    /**
+     * Removes all entities so the hash can be rebuilt for the next tick.
+     */
+    public void clear() {
+        Arrays.fill(buckets, -1);
+        entryCount = 0;
+    }
+
+    /**
+     * Adds an entity's bounding box to every cell it overlaps.
+     *
+     * @param id
+     *          Non-negative id used to refer to the entity
+     * @param x
+     *          Left edge of the entity
+     * @param y
+     *          Top edge of the entity
+     * @param width
+     *          Width of the entity
+     * @param height
+     *          Height of the entity
+     */
+    public void insert(int id, double x, double y, double width, double height) {
+        if (id >= idStamps.length) {
+            idStamps = Arrays.copyOf(idStamps, Math.max(id + 1, idStamps.length*2));
+            results = Arrays.copyOf(results, idStamps.length);
+        }
+        int lastCellX = cell(x + width);
+        int lastCellY = cell(y + height);
+        for (int cx = cell(x); cx <= lastCellX; cx++) {
+            for (int cy = cell(y); cy <= lastCellY; cy++) {
+                addEntry(id, cx, cy);
+            }
+        }
+    }
+
+    /**
+     * Finds every entity sharing a cell with the given box.
+     * Touching boxes are included, same as Body.checkObjectCollision().
+     * Results are sorted by id and can be read with getResult().
+     *
+     * @param x
+     *          Left edge of the box
+     * @param y
+     *          Top edge of the box
+     * @param width
+     *          Width of the box
+     * @param height
+     *          Height of the box
+     * @return
+     *          Number of candidate entities found
+     */
+    public int query(double x, double y, double width, double height) {
+        stamp++;
+        if (stamp == 0) {
+            //Stamps wrapped around, so old stamps could be mistaken for new ones
+            Arrays.fill(idStamps, 0);
+            stamp = 1;
+        }
+        resultCount = 0;
+        int lastCellX = cell(x + width);
+        int lastCellY = cell(y + height);
+        for (int cx = cell(x); cx <= lastCellX; cx++) {
+            for (int cy = cell(y); cy <= lastCellY; cy++) {
+                for (int e = buckets[hash(cx, cy)]; e != -1; e = entryNext[e]) {
+                    int id = entryId[e];
+                    if (entryCellX[e] == cx && entryCellY[e] == cy && idStamps[id] != stamp) {
+                        idStamps[id] = stamp;
+                        results[resultCount++] = id;
+                    }
+                }
+            }
+        }
+        //Keep the same order the entities would have been checked in before
+        Arrays.sort(results, 0, resultCount);
+        return resultCount;
+    }
+
+    /**
+     * Gets one of the ids found by the last query.
+     *
+     * @param i
+     *          Index of the result, less than the value returned by query()
+     * @return
+     *          Id of the candidate entity
+     */
+    public int getResult(int i) {
+        return results[i];
+    }
+
+    private void addEntry(int id, int cx, int cy) {
+        if (entryCount == entryId.length) {
+            int capacity = entryId.length*2;
+            entryId = Arrays.copyOf(entryId, capacity);
+            entryCellX = Arrays.copyOf(entryCellX, capacity);
+            entryCellY = Arrays.copyOf(entryCellY, capacity);
+            entryNext = Arrays.copyOf(entryNext, capacity);
+            //Keep chains short by having at least as many buckets as entries
+            buckets = new int[capacity];
+            mask = capacity - 1;
+            rehash();
+        }
+        int bucket = hash(cx, cy);
+        entryId[entryCount] = id;
+        entryCellX[entryCount] = cx;
+        entryCellY[entryCount] = cy;
+        entryNext[entryCount] = buckets[bucket];
+        buckets[bucket] = entryCount;
+        entryCount++;
+    }
+
+    private void rehash() {
+        Arrays.fill(buckets, -1);
+        for (int e = 0; e < entryCount; e++) {
+            int bucket = hash(entryCellX[e], entryCellY[e]);
+            entryNext[e] = buckets[bucket];
+            buckets[bucket] = e;
+        }
+    }
+
+    private int cell(double coordinate) {
+        return (int) Math.floor(coordinate / cellSize);
+    }
+
+    private int hash(int cx, int cy) {
+        return (cx*73856093 ^ cy*19349663) & mask;
+    }
+}
@@ -0,0 +1,120 @@
+package simulation;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Times each phase of a tick (and of drawing a frame) into histograms.
+ * Code being profiled asks its World for the profiler and skips all
+ * timing when there isn't one, so profiling costs almost nothing while
+ * it's turned off.
+ *
+ * Not thread-safe; only phases run on the game loop's thread are timed.
+ *
+ * @author dPow
+ */
+public class TickProfiler {
+
+    public enum Phase {
+        TICK, //All of World.step()
+        INPUT,
+        STREAMING, //Activating and evicting chunks of the map
+        ENEMY_HASH,
+        PLAYER_MAP_COLLISION,
+        PLAYER_WIN,
+        PLAYER_ENEMY_COLLISION,
+        PLAYER_MAP_LOCATION,
+        PLAYER_MOVE,
+        PLAYER_ANIMATION,
+        FIREBALLS,
+        ENEMIES, //Every enemy, including the phases below
+        ENEMY_MAP_COLLISION, //Per enemy, only when enemies are Bodies updated serially
+        ENEMY_MOVE,
+        ENEMY_ANIMATION,
+        RENDER, //All of GameState.render()
+        HUD;
+    }
+
+    private static final Phase[] PHASES = Phase.values();
+
+    private final Histogram[] histograms = new Histogram[PHASES.length];
+
+    public TickProfiler() {
+        for (int i = 0; i < histograms.length; i++) {
+            histograms[i] = new Histogram();
+        }
+    }
+
+    /**
+     * Records how long a phase took, and returns the current time so that
+     * the next phase can be timed from it.
+     *
+     * @param phase
+     *          Phase that just finished
+     * @param start
+     *          System.nanoTime() when the phase started
+     * @return
+     *          System.nanoTime() now
+     */
+    public long lap(Phase phase, long start) {
+        long now = System.nanoTime();
+        histograms[phase.ordinal()].record(now - start);
+        return now;
+    }
+
+    public Histogram get(Phase phase) {
+        return histograms[phase.ordinal()];
+    }
+
+    /**
+     * Removes every recorded time.
+     */
+    public void reset() {
+        for (Histogram histogram : histograms) {
+            histogram.reset();
+        }
+    }
+
+    /**
+     * Writes one line per phase that has been timed: how many times, and
+     * the mean, p50, p99 and max in microseconds.
+     *
+     * @param out
+     *          Where to write the CSV
+     * @throws IOException
+     *          If writing fails
+     */
+    public void writeCsv(Writer out) throws IOException {
+        out.write("phase,count,mean_us,p50_us,p99_us,max_us\n");
+        for (Phase phase : PHASES) {
+            Histogram h = get(phase);
+            if (h.getCount() == 0) {
+                continue;
+            }
+            out.write(String.format("%s,%d,%.3f,%.3f,%.3f,%.3f%n", phase, h.getCount(),
+                    h.getMean() / 1000, h.getPercentile(50) / 1000.0,
+                    h.getPercentile(99) / 1000.0, h.getMax() / 1000.0));
+        }
+    }
+
+    /**
+     * Summarizes every phase that has been timed, one per line, for
+     * showing on screen.
+     *
+     * @return
+     *          Phase name, p50, p99 and max in microseconds
+     */
+    public String getSummary() {
+        StringBuilder summary = new StringBuilder("phase  p50/p99/max us\n");
+        for (Phase phase : PHASES) {
+            Histogram h = get(phase);
+            if (h.getCount() == 0) {
+                continue;
+            }
+            summary.append(String.format("%-22s %6.1f %6.1f %7.1f%n", phase,
+                    h.getPercentile(50) / 1000.0, h.getPercentile(99) / 1000.0,
+                    h.getMax() / 1000.0));
+        }
+        return summary.toString();
+    }
+}
@@ -0,0 +1,146 @@
+package simulation;
+
+/**
+ * Uniform grid over the level's map tiles. Since every tile is the same
+ * size, the tiles an entity overlaps can be calculated directly from its
+ * bounding box rather than by checking every tile in the map.
+ *
+ * The index works in world coordinates, the same ones the entities use,
+ * so it doesn't need to change when the camera scrolls.
+ *
+ * @author dPow
+ */
+public class TileIndex {
+    private final CollisionLayer layer;
+    private final int tileSize;
+    private double originX; //World location of the top-left tile
+    private double originY;
+
+    /**
+     * Creates an index over the given collision layer.
+     *
+     * @param layer
+     *          Tile numbers of the map, row 0 being the top of the map
+     * @param tileSize
+     *          Width and height of each tile on screen
+     */
+    public TileIndex(CollisionLayer layer, int tileSize) {
+        this.layer = layer;
+        this.tileSize = tileSize;
+    }
+
+    /**
+     * Sets the world location of the top-left tile.
+     *
+     * @param x
+     *          X-coordinate of the top-left tile
+     * @param y
+     *          Y-coordinate of the top-left tile
+     */
+    public void setOrigin(double x, double y) {
+        originX = x;
+        originY = y;
+    }
+
+    public int getRows() {
+        return layer.getRows();
+    }
+
+    public int getColumns() {
+        return layer.getColumns();
+    }
+
+    /**
+     * Gets the first column touched by something starting at x.
+     * Touching edges count as a collision, same as
+     * Body.checkObjectCollision().
+     *
+     * @param x
+     *          Left edge of the object
+     * @return
+     *          Left-most column the object touches, clamped to the map
+     */
+    public int firstColumn(double x) {
+        int col = (int) Math.ceil((x - originX) / tileSize) - 1;
+        return Math.max(col, 0);
+    }
+
+    /**
+     * Gets the last column touched by something spanning [x, x + width].
+     *
+     * @param x
+     *          Left edge of the object
+     * @param width
+     *          Width of the object
+     * @return
+     *          Right-most column the object touches, clamped to the map
+     */
+    public int lastColumn(double x, double width) {
+        int col = (int) Math.floor((x + width - originX) / tileSize);
+        return Math.min(col, getColumns() - 1);
+    }
+
+    /**
+     * Gets the first row touched by something starting at y.
+     *
+     * @param y
+     *          Top edge of the object
+     * @return
+     *          Top-most row the object touches, clamped to the map
+     */
+    public int firstRow(double y) {
+        int row = (int) Math.ceil((y - originY) / tileSize) - 1;
+        return Math.max(row, 0);
+    }
+
+    /**
+     * Gets the last row touched by something spanning [y, y + height].
+     *
+     * @param y
+     *          Top edge of the object
+     * @param height
+     *          Height of the object
+     * @return
+     *          Bottom-most row the object touches, clamped to the map
+     */
+    public int lastRow(double y, double height) {
+        int row = (int) Math.floor((y + height - originY) / tileSize);
+        return Math.min(row, getRows() - 1);
+    }
+
+    public int getTile(int row, int col) {
+        return layer.getTile(row, col);
+    }
+
+    public boolean isSolid(int row, int col) {
+        return layer.isSolid(row, col);
+    }
+
+    public CollisionLayer getLayer() {
+        return layer;
+    }
+
+    /**
+     * Gets the world X-coordinate of the center of a column's tiles.
+     *
+     * @param col
+     *          Column of the tile
+     * @return
+     *          X-coordinate of the tile's center
+     */
+    public double getTileCenterX(int col) {
+        return originX + col*tileSize + tileSize/2;
+    }
+
+    /**
+     * Gets the world Y-coordinate of the center of a row's tiles.
+     *
+     * @param row
+     *          Row of the tile
+     * @return
+     *          Y-coordinate of the tile's center
+     */
+    public double getTileCenterY(int row) {
+        return originY + row*tileSize + tileSize/2;
+    }
+}
@@ -0,0 +1,696 @@
+package simulation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.LongConsumer;
+import simulation.TickProfiler.Phase;
+
+/**
+ * Everything that happens in a level, without any drawing: the map's
+ * collision tiles, the player, enemies and fireballs, and how far the
+ * camera has scrolled. Calling step() advances the level by one tick.
+ *
+ * A World doesn't use JavaFX, so a level can be simulated without a
+ * window (for tests, benchmarks or replays). GameState builds one for each
+ * level and draws it; anything the simulation needs from the outside
+ * (sounds, new bodies, winning or dying) goes through a Listener.
+ *
+ * The map is streamed in chunks of CollisionLayer.CHUNK_COLUMNS columns.
+ * Chunks within a chunk of the screen are active: their enemy tiles
+ * (spawn markers) are turned into enemies when the chunk becomes active.
+ * The tiles of one more chunk on each side are loaded from the level's
+ * ChunkSource too, so enemies in active chunks always have map to walk on.
+ * Chunks more than three chunks off screen are evicted. Enemies standing
+ * next to a chunk that isn't loaded are despawned, and come back at their
+ * marker the next time its chunk becomes active. Enemies that were killed
+ * don't come back. So a level takes the same time to start however long
+ * it is, and only remembers one bit for each tile it has spawned from.
+ *
+ * @author dPow
+ */
+public class World {
+    public static final int PLAYER_SIZE = 80;
+    public static final int ENEMY_SIZE = 50;
+    public static final int MAP_TILE_SIZE = 50;
+    public static final int PLAYER_TILE = 25;
+    public static final int SNAIL_TILE = 26;
+    public static final List<Integer> WINNING_TILES =
+            Collections.unmodifiableList(Arrays.asList(15, 16));
+    public static final List<Integer> ENEMY_TILES =
+            Collections.unmodifiableList(Arrays.asList(SNAIL_TILE));
+
+    /**
+     * Receives the events of a World that need something outside of the
+     * simulation, such as sound or changing levels. Called on the thread
+     * that calls step().
+     */
+    public interface Listener {
+        /**
+         * @param sound
+         *          Sound to play
+         */
+        void playSound(Sound sound);
+
+        /**
+         * Called when a body is added to the world after it was built: a
+         * fireball, or an enemy whose chunk was activated.
+         *
+         * @param body
+         *          The new body
+         */
+        void bodySpawned(Body body);
+
+        /**
+         * Called when the player touches a winning tile.
+         */
+        void levelWon();
+
+        /**
+         * Called when the player's death animation has finished.
+         */
+        void playerDied();
+    }
+
+    private final double width; //Width of the screen
+    private final double height; //Height of the screen
+    private final double mapY; //Top of the map. The left edge is always 0.
+    private final double mapWidth;
+    private final ChunkSource map;
+    private final int[][] chunkTiles; //Where each chunk is read to before it's loaded
+    private int firstActiveChunk = -1; //Chunks that stream() last spawned enemies in
+    private int lastActiveChunk = -1;
+    private int loadedChunks;
+    //Spawn markers (col*rows + row) whose enemy is alive or was killed
+    private final BitSet usedMarkers = new BitSet();
+    private final CollisionLayer collisionLayer;
+    private final TileIndex tileIndex; //Used to find which tiles a body is touching
+    //Broad-phase of enemy locations, rebuilt every tick
+    private final SpatialHash enemyHash = new SpatialHash(2*MAP_TILE_SIZE);
+    private PlayerBody player;
+    private final EnemyGroup enemies;
+    private final List<FireballBody> fireballs = new ArrayList<>();
+    private double cameraX; //Screen X-coordinate of the map's left edge
+    private double previousCameraX; //cameraX at the start of the current tick
+    //Inputs from the keyboard, applied at the start of each tick
+    private final InputQueue input = new InputQueue();
+    private final InputQueue.Handler inputHandler = this::applyInput;
+    private LongConsumer inputLatencyHook; //Told how long each input waited
+    private InputRecording recording; //null unless recording inputs
+    private ParallelEnemyUpdater enemyUpdater; //null to update enemies serially
+    private TickProfiler profiler; //null unless profiling
+    private Listener listener;
+    private boolean finished; //Level won or player died
+    private long ticks;
+
+    /**
+     * Builds a level from its map. The player tile is used to place the
+     * player, and enemy tiles to place enemies when their chunk is
+     * activated.
+     *
+     * @param mapTiles
+     *          int[row][col] of tile numbers. It isn't changed.
+     * @param numDecorationTiles
+     *          Number of tiles to not include in body collision
+     * @param width
+     *          Width of the screen
+     * @param height
+     *          Height of the screen; the bottom row of the map is drawn at
+     *          the bottom of the screen
+     */
+    public World(int[][] mapTiles, int numDecorationTiles, double width, double height) {
+        this(mapTiles, numDecorationTiles, width, height, false);
+    }
+
+    /**
+     * Builds a level from its map. The player tile is used to place the
+     * player, and enemy tiles to place enemies when their chunk is
+     * activated.
+     *
+     * @param mapTiles
+     *          int[row][col] of tile numbers. It isn't changed.
+     * @param numDecorationTiles
+     *          Number of tiles to not include in body collision
+     * @param width
+     *          Width of the screen
+     * @param height
+     *          Height of the screen; the bottom row of the map is drawn at
+     *          the bottom of the screen
+     * @param packedEnemies
+     *          True to keep the snails in a SnailStore instead of one
+     *          SnailBody each, for levels with a very large number of them
+     */
+    public World(int[][] mapTiles, int numDecorationTiles, double width, double height,
+            boolean packedEnemies) {
+        this(new ArrayChunkSource(mapTiles), numDecorationTiles, width, height, packedEnemies);
+    }
+
+    /**
+     * Builds a level from a map that is read a chunk at a time. Only the
+     * chunks from the left edge to the player's tile, and those around the
+     * screen, are read before the level starts.
+     *
+     * @param map
+     *          The level's map
+     * @param numDecorationTiles
+     *          Number of tiles to not include in body collision
+     * @param width
+     *          Width of the screen
+     * @param height
+     *          Height of the screen; the bottom row of the map is drawn at
+     *          the bottom of the screen
+     * @param packedEnemies
+     *          True to keep the snails in a SnailStore instead of one
+     *          SnailBody each, for levels with a very large number of them
+     */
+    public World(ChunkSource map, int numDecorationTiles, double width, double height,
+            boolean packedEnemies) {
+        this.map = map;
+        this.width = width;
+        this.height = height;
+        mapY = height - map.getRows()*MAP_TILE_SIZE;
+        mapWidth = map.getColumns()*MAP_TILE_SIZE;
+        if (packedEnemies) {
+            enemies = new SnailStore(this, 0);
+        } else {
+            enemies = new BodyEnemyGroup();
+        }
+        chunkTiles = new int[map.getRows()][CollisionLayer.CHUNK_COLUMNS];
+
+        //Enough slots for the screen plus a partly shown chunk, and three
+        //chunks on each side: active, loaded, and kept before evicting
+        int chunkWidth = CollisionLayer.CHUNK_COLUMNS*MAP_TILE_SIZE;
+        int maxChunks = (int) Math.ceil(width / chunkWidth) + 7;
+        collisionLayer = new CollisionLayer(map.getRows(), map.getColumns(),
+                numDecorationTiles, maxChunks);
+        tileIndex = new TileIndex(collisionLayer, MAP_TILE_SIZE);
+        tileIndex.setOrigin(0, mapY);
+
+        player = findPlayer();
+        stream();
+    }
+
+    /**
+     * Reads chunks from the left until one has the player's tile.
+     *
+     * @return
+     *          The player, standing on its tile
+     */
+    private PlayerBody findPlayer() {
+        for (int chunk = 0; chunk < collisionLayer.getChunkCount(); chunk++) {
+            int count = collisionLayer.getChunkColumns(chunk);
+            map.readColumns(chunk*CollisionLayer.CHUNK_COLUMNS, count, chunkTiles);
+            //Bottom row first, the same order the map used to be read in
+            for (int row = chunkTiles.length - 1; row >= 0; row--) {
+                for (int col = 0; col < count; col++) {
+                    if (chunkTiles[row][col] == PLAYER_TILE) {
+                        return new PlayerBody(this,
+                                MAP_TILE_SIZE*(chunk*CollisionLayer.CHUNK_COLUMNS + col),
+                                MAP_TILE_SIZE*(row - 1));
+                    }
+                }
+            }
+        }
+        throw new IllegalArgumentException("Map has no player tile");
+    }
+
+    /**
+     * Loads the chunks within two chunks of the screen (or the player),
+     * spawns the enemies of the ones within a chunk, and evicts the ones
+     * more than three chunks away. Also despawns enemies that have walked
+     * to the edge of the loaded chunks, since there is no map for them to
+     * stand on past it.
+     */
+    private void stream() {
+        double chunkWidth = CollisionLayer.CHUNK_COLUMNS*MAP_TILE_SIZE;
+        double left = Math.min(-cameraX, player.x);
+        double right = Math.max(-cameraX + width, player.x + player.width);
+        int lastChunk = collisionLayer.getChunkCount() - 1;
+        int firstActive = Math.max(0, (int) Math.floor((left - chunkWidth) / chunkWidth));
+        int lastActive = Math.min(lastChunk, (int) Math.floor((right + chunkWidth) / chunkWidth));
+
+        if (firstActive != firstActiveChunk || lastActive != lastActiveChunk) {
+            //A map that fits in the layer is kept once it's loaded
+            if (collisionLayer.getSlots() <= lastChunk) {
+                for (int slot = 0; slot < collisionLayer.getSlots(); slot++) {
+                    int chunk = collisionLayer.getChunkInSlot(slot);
+                    if (chunk != -1 && (chunk < firstActive - 2 || chunk > lastActive + 2)) {
+                        evictChunk(chunk);
+                    }
+                }
+            }
+            int lastLoaded = Math.min(lastChunk, lastActive + 1);
+            for (int chunk = Math.max(0, firstActive - 1); chunk <= lastLoaded; chunk++) {
+                if (!collisionLayer.isLoaded(chunk)) {
+                    int old = collisionLayer.getChunkInSlotOf(chunk);
+                    if (old != -1) {
+                        evictChunk(old);
+                    }
+                    loadChunk(chunk);
+                }
+            }
+            for (int chunk = firstActive; chunk <= lastActive; chunk++) {
+                if (chunk < firstActiveChunk || chunk > lastActiveChunk) {
+                    spawnEnemies(chunk);
+                }
+            }
+            firstActiveChunk = firstActive;
+            lastActiveChunk = lastActive;
+        }
+
+        if (loadedChunks <= lastChunk) {
+            boolean despawned = false;
+            for (int i = 0; i < enemies.size(); i++) {
+                double x = enemies.getX(i);
+                int first = CollisionLayer.getChunk((int) Math.floor(x / MAP_TILE_SIZE) - 1);
+                int last = CollisionLayer.getChunk(
+                        (int) Math.floor((x + ENEMY_SIZE) / MAP_TILE_SIZE) + 1);
+                if ((first >= 0 && !collisionLayer.isLoaded(first))
+                        || (last <= lastChunk && !collisionLayer.isLoaded(last))) {
+                    despawn(i);
+                    despawned = true;
+                }
+            }
+            if (despawned) {
+                enemies.removeDead();
+            }
+        }
+    }
+
+    /**
+     * Loads a chunk's tiles, without its spawn markers.
+     *
+     * @param chunk
+     *          Index of the chunk
+     */
+    private void loadChunk(int chunk) {
+        int count = collisionLayer.getChunkColumns(chunk);
+        map.readColumns(chunk*CollisionLayer.CHUNK_COLUMNS, count, chunkTiles);
+        for (int row = 0; row < chunkTiles.length; row++) {
+            for (int col = 0; col < count; col++) {
+                int tile = chunkTiles[row][col];
+                if (tile == SNAIL_TILE || tile == PLAYER_TILE) {
+                    chunkTiles[row][col] = 0;
+                }
+            }
+        }
+        collisionLayer.load(chunk, chunkTiles);
+        loadedChunks++;
+    }
+
+    private void evictChunk(int chunk) {
+        collisionLayer.evict(chunk);
+        loadedChunks--;
+    }
+
+    /**
+     * Spawns the enemies of a chunk that just became active, except the
+     * ones that are still alive or were killed.
+     *
+     * @param chunk
+     *          Index of the chunk
+     */
+    private void spawnEnemies(int chunk) {
+        int firstColumn = chunk*CollisionLayer.CHUNK_COLUMNS;
+        int count = collisionLayer.getChunkColumns(chunk);
+        int rows = chunkTiles.length;
+        map.readColumns(firstColumn, count, chunkTiles);
+        //Bottom row first, the same order the map used to be read in
+        for (int row = rows - 1; row >= 0; row--) {
+            for (int col = 0; col < count; col++) {
+                int marker = (firstColumn + col)*rows + row;
+                if (chunkTiles[row][col] == SNAIL_TILE && !usedMarkers.get(marker)) {
+                    usedMarkers.set(marker);
+                    spawnSnail(MAP_TILE_SIZE*(firstColumn + col), MAP_TILE_SIZE*(row - 1),
+                            marker);
+                }
+            }
+        }
+    }
+
+    private void spawnSnail(double x, double y, int marker) {
+        if (enemies instanceof SnailStore) {
+            ((SnailStore) enemies).add(x, y, marker);
+        } else {
+            SnailBody snail = new SnailBody(this, x, y);
+            snail.spawnMarker = marker;
+            ((BodyEnemyGroup) enemies).add(snail);
+            if (listener != null) {
+                listener.bodySpawned(snail);
+            }
+        }
+    }
+
+    /**
+     * Takes an enemy out of the world because the map next to it isn't
+     * loaded. A living enemy can spawn from its marker again; a dying one
+     * stays dead.
+     *
+     * @param id
+     *          Index of the enemy
+     */
+    private void despawn(int id) {
+        int marker = enemies.getSpawnMarker(id);
+        if (marker != -1 && enemies.isAlive(id)) {
+            usedMarkers.clear(marker);
+        }
+        enemies.despawn(id);
+    }
+
+    /**
+     * Sets who is told about sounds, new bodies, winning and dying.
+     *
+     * @param listener
+     *          Listener, or null to ignore the events
+     */
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Sets whether enemies are updated in parallel. The result of each
+     * tick is the same either way.
+     *
+     * @param enemyUpdater
+     *          Updater that splits the enemies across threads, or null to
+     *          update them one by one on the thread calling step()
+     */
+    public void setEnemyUpdater(ParallelEnemyUpdater enemyUpdater) {
+        this.enemyUpdater = enemyUpdater;
+    }
+
+    /**
+     * Advances the level by one tick. Does nothing once the level has
+     * been won or the player has died.
+     */
+    public void step() {
+        if (finished) {
+            return;
+        }
+        TickProfiler profiler = this.profiler;
+        long start = profiler != null ? System.nanoTime() : 0;
+        long time = start;
+        ticks++;
+        input.drainTo(inputHandler);
+        if (profiler != null) {
+            time = profiler.lap(Phase.INPUT, time);
+        }
+        stream();
+        if (profiler != null) {
+            time = profiler.lap(Phase.STREAMING, time);
+        }
+        savePositions();
+        updateEnemyHash();
+        if (profiler != null) {
+            time = profiler.lap(Phase.ENEMY_HASH, time);
+        }
+        player.update();
+        if (finished) {
+            return;
+        }
+        if (profiler != null) {
+            time = System.nanoTime();
+        }
+        if (enemyUpdater != null) {
+            enemyUpdater.update(this, enemies);
+        } else {
+            enemies.update();
+        }
+        //Removed after every update so the hash's indices stay valid
+        enemies.removeDead();
+        if (profiler != null) {
+            profiler.lap(Phase.ENEMIES, time);
+            profiler.lap(Phase.TICK, start);
+        }
+    }
+
+    /**
+     * Turns profiling of each tick's phases on or off.
+     *
+     * @param profiler
+     *          Where to record the times, or null to stop profiling
+     */
+    public void setProfiler(TickProfiler profiler) {
+        this.profiler = profiler;
+    }
+
+    public TickProfiler getProfiler() {
+        return profiler;
+    }
+
+    /**
+     * Passes an input from the queue to the player.
+     *
+     * @param in
+     *          The input
+     * @param time
+     *          When the input happened, from System.nanoTime()
+     */
+    private void applyInput(Input in, long time) {
+        if (inputLatencyHook != null) {
+            inputLatencyHook.accept(System.nanoTime() - time);
+        }
+        if (recording != null) {
+            recording.record(ticks, in);
+        }
+        switch (in) {
+            case LEFT_PRESSED:
+                player.pressLeft();
+                break;
+            case RIGHT_PRESSED:
+                player.pressRight();
+                break;
+            case MOVE_RELEASED:
+                player.releaseMove();
+                break;
+            case JUMP_PRESSED:
+                player.pressJump();
+                break;
+            case JUMP_RELEASED:
+                player.releaseJump();
+                break;
+            case SCRATCH_PRESSED:
+                player.pressScratch();
+                break;
+            case FIRE_PRESSED:
+                player.pressFire();
+                break;
+        }
+    }
+
+    /**
+     * Gets the queue that the player's inputs are sent to. They are
+     * applied at the start of the next tick.
+     *
+     * @return
+     *          The world's input queue
+     */
+    public InputQueue getInput() {
+        return input;
+    }
+
+    /**
+     * Sets what is told how long each input waited between happening and
+     * being applied to the player.
+     *
+     * @param hook
+     *          Receives the latency in nanoseconds, or null for nothing
+     */
+    public void setInputLatencyHook(LongConsumer hook) {
+        inputLatencyHook = hook;
+    }
+
+    /**
+     * Starts or stops recording the inputs applied to the player.
+     *
+     * @param recording
+     *          Recording to add the inputs to, or null to stop recording
+     */
+    public void setRecording(InputRecording recording) {
+        this.recording = recording;
+    }
+
+    /**
+     * Hashes the state of the level: the tick, camera, and the position
+     * and health of every body. Two worlds built from the same map that are
+     * given the same inputs on the same ticks have the same hash, whether
+     * the enemies are packed or updated in parallel.
+     *
+     * @return
+     *          64-bit FNV-1a hash of the world's state
+     */
+    public long getStateHash() {
+        long hash = 0xcbf29ce484222325L;
+        hash = mix(hash, ticks);
+        hash = mix(hash, finished ? 1 : 0);
+        hash = mix(hash, Double.doubleToLongBits(cameraX));
+        hash = mix(hash, Double.doubleToLongBits(player.x));
+        hash = mix(hash, Double.doubleToLongBits(player.y));
+        hash = mix(hash, player.health);
+        hash = mix(hash, player.fireEnergy);
+        hash = mix(hash, fireballs.size());
+        for (int i = 0; i < fireballs.size(); i++) {
+            FireballBody fireball = fireballs.get(i);
+            hash = mix(hash, Double.doubleToLongBits(fireball.x));
+            hash = mix(hash, Double.doubleToLongBits(fireball.y));
+        }
+        hash = mix(hash, enemies.size());
+        for (int i = 0; i < enemies.size(); i++) {
+            hash = mix(hash, Double.doubleToLongBits(enemies.getX(i)));
+            hash = mix(hash, Double.doubleToLongBits(enemies.getY(i)));
+            hash = mix(hash, enemies.getHealth(i));
+        }
+        return hash;
+    }
+
+    private static long mix(long hash, long value) {
+        for (int i = 0; i < 8; i++) {
+            hash ^= value & 0xFF;
+            hash *= 0x100000001b3L;
+            value >>>= 8;
+        }
+        return hash;
+    }
+
+    /**
+     * Remembers where the camera and every body were at the start of the
+     * tick so that they can be drawn between the old and new positions.
+     */
+    private void savePositions() {
+        previousCameraX = cameraX;
+        player.savePosition();
+        enemies.savePositions();
+        for (int i = 0; i < fireballs.size(); i++){
+            fireballs.get(i).savePosition();
+        }
+    }
+
+    /**
+     * Rebuilds the enemy broad-phase. Enemies are stored by their index
+     * in the enemy group.
+     */
+    private void updateEnemyHash() {
+        enemyHash.clear();
+        enemies.insertInto(enemyHash);
+    }
+
+    /**
+     * Moves the camera in the opposite direction that the player is
+     * moving. Bodies keep their world coordinates.
+     *
+     * @param direction
+     *          "Left" or "Right" as specified by PlayerBody
+     * @param moveSpeed
+     *          How fast the map should move as specified by PlayerBody
+     */
+    public void moveMap(String direction, int moveSpeed) {
+        switch(direction){
+            case "Left":
+                //Do nothing; moveSpeed from PlayerBody is already positive
+                break;
+            case "Right":
+                moveSpeed *= -1;
+                break;
+        }
+        cameraX += moveSpeed;
+    }
+
+    void addFireball(FireballBody fireball) {
+        fireballs.add(fireball);
+        if (listener != null) {
+            listener.bodySpawned(fireball);
+        }
+    }
+
+    void playSound(Sound sound) {
+        if (sound != null && listener != null) {
+            listener.playSound(sound);
+        }
+    }
+
+    void win() {
+        finished = true;
+        if (listener != null) {
+            listener.levelWon();
+        }
+    }
+
+    void playerDied() {
+        finished = true;
+        if (listener != null) {
+            listener.playerDied();
+        }
+    }
+
+    /**
+     * Gets whether the level is over, either because it was won or
+     * because the player died.
+     *
+     * @return
+     *          True if step() no longer does anything
+     */
+    public boolean isFinished() {
+        return finished;
+    }
+
+    public long getTicks() {
+        return ticks;
+    }
+
+    public PlayerBody getPlayer() {
+        return player;
+    }
+
+    public EnemyGroup getEnemyGroup() {
+        return enemies;
+    }
+
+    public List<FireballBody> getFireballs() {
+        return fireballs;
+    }
+
+    public CollisionLayer getCollisionLayer() {
+        return collisionLayer;
+    }
+
+    public TileIndex getTileIndex() {
+        return tileIndex;
+    }
+
+    public SpatialHash getEnemyHash() {
+        return enemyHash;
+    }
+
+    /**
+     * Gets how far the map has been scrolled. This is 0 at the start
+     * of a level and becomes more negative as the player moves right.
+     *
+     * @return
+     *          Screen X-coordinate of the map's left edge
+     */
+    public double getCameraX() {
+        return cameraX;
+    }
+
+    public double getPreviousCameraX() {
+        return previousCameraX;
+    }
+
+    public double getWidth() {
+        return width;
+    }
+
+    public double getHeight() {
+        return height;
+    }
+
+    public double getMapY() {
+        return mapY;
+    }
+
+    public double getMapWidth() {
+        return mapWidth;
+    }
+}